@@ -2,10 +2,57 @@ package src;
 
 import javax.swing.SwingUtilities;
 
+import src.model.GameBoard;
+import src.presentation.AutoPlayer;
+import src.presentation.BatchRunner;
+import src.presentation.HeadlessEngine;
+import src.presentation.ReplayVerifier;
 import src.view.TetrisLegacy;
 
 public class Main {
+    private static final long AI_MAX_TICKS = 20_000;
+
     public static void main(String[] args) {
+        // --ai anywhere on the command line lets the bot play headless and batch games.
+        // The bot hard-drops and rarely tops out, so its games stop after
+        // AI_MAX_TICKS gravity ticks unless --max-ticks <n> says otherwise.
+        boolean ai = false;
+        long maxTicks = -1;
+        java.util.List<String> rest = new java.util.ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--ai"))
+                ai = true;
+            else if (args[i].equals("--max-ticks") && i + 1 < args.length)
+                maxTicks = Long.parseLong(args[++i]);
+            else
+                rest.add(args[i]);
+        }
+        args = rest.toArray(new String[0]);
+        if (maxTicks < 0)
+            maxTicks = ai ? AI_MAX_TICKS : Long.MAX_VALUE;
+
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessEngine engine = new HeadlessEngine("Headless").setMaxTicks(maxTicks);
+            if (ai)
+                engine.setController(new AutoPlayer());
+            GameBoard result = engine.run();
+            System.out.println("Score: " + result.score + "  Level: " + result.level
+                    + "  Ticks: " + engine.getClock().getTicks());
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--verify")) {
+            ReplayVerifier.verify(new java.io.File(args[1]));
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--batch")) {
+            int games = Integer.parseInt(args[1]);
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+            BatchRunner runner = new BatchRunner().setMaxTicks(maxTicks);
+            if (ai)
+                runner.setControllers(AutoPlayer::new);
+            System.out.print(runner.run(games, seed));
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             TetrisLegacy frame = new TetrisLegacy();
             frame.setTitle("Tetris Legacy Pro");
@@ -0,0 +1,376 @@
+package src.bench;
+
+import src.model.BitBoard;
+import src.model.GameBoard;
+import src.model.GameSnapshot;
+import src.model.Perk;
+import src.presentation.FixedStepClock;
+import src.presentation.GamePresenter;
+import src.presentation.GameView;
+import src.presentation.HeadlessEngine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+// Micro benchmarks for the engine hot paths. Each benchmark runs in its own
+// JVM, so call sites one benchmark makes megamorphic cannot slow down the
+// next. It is warmed up, then timed over ITERATIONS fixed-length runs and
+// reported as the median ops/second together with its spread (half the
+// interquartile range of the runs, relative to the median). Ops that use up
+// their game are timed without the restore that undoes them.
+// Whole-game throughput, in gravity ticks per second, is measured the same
+// way and reported separately.
+//
+// Results can be saved as a baseline and later runs compared against it,
+// failing with exit code 1 when anything got slower than the tolerance or
+// twice the larger of the two measured spreads, whichever is wider, so
+// ordinary run-to-run noise does not fail the gate.
+//
+// Usage: GameBenchmark [--time ms] [--save file] [--baseline file] [--tolerance 0.30] [--in-process] [filter]
+public class GameBenchmark {
+
+    interface Bench {
+        // Runs one operation and returns something derived from it so the JIT cannot drop it
+        int op();
+
+        // Untimed, before every batch of BATCH ops; puts back what the ops used up
+        default void reset() {
+        }
+    }
+
+    private static final GameView NO_VIEW = new GameView() {
+        public void onRepaint() {
+        }
+
+        public void onGameOver(String name, int score) {
+        }
+    };
+
+    private static final int ITERATIONS = 21;
+    private static final int WARMUPS = 5;
+    private static final int BATCH = 256; // ops between two clock reads
+    private static final String THROUGHPUT = "game.throughput";
+    private static volatile int sink;
+
+    private final Map<String, Bench> benches = new LinkedHashMap<>();
+
+    private final BitBoard empty = new BitBoard();
+    private final BitBoard mid = filled(8, 1);
+    private final BitBoard high = filled(15, 2);
+    private final BitBoard twoLineGap = new BitBoard();
+    private final BitBoard fourLineGap = new BitBoard();
+
+    public GameBenchmark() {
+        // bottom two rows full except columns 0-1, an O piece finishes both
+        for (int y = GameBoard.BOARD_HEIGHT - 2; y < GameBoard.BOARD_HEIGHT; y++)
+            for (int x = 2; x < GameBoard.BOARD_WIDTH; x++)
+                twoLineGap.set(x, y, 3);
+        // bottom four rows full except column 0, an upright I piece finishes all four
+        for (int y = GameBoard.BOARD_HEIGHT - 4; y < GameBoard.BOARD_HEIGHT; y++)
+            for (int x = 1; x < GameBoard.BOARD_WIDTH; x++)
+                fourLineGap.set(x, y, 4);
+
+        GameBoard model = new GameBoard();
+        GamePresenter p = presenter(model);
+
+        model.board.copyFrom(mid);
+        int[][] tPiece = GameBoard.shape(2);
+        benches.put("canMove.free", () -> p.canMove(tPiece, 4, 2) ? 1 : 0);
+        benches.put("canMove.blocked", () -> p.canMove(tPiece, 4, GameBoard.BOARD_HEIGHT - 2) ? 1 : 0);
+        benches.put("canMove.table", () -> p.canMove(2, 0, 4, 2) ? 1 : 0);
+
+        GameBoard rotModel = new GameBoard();
+        GamePresenter rot = presenter(rotModel);
+        rotModel.board.copyFrom(mid);
+        rot.setPiece(2, 4, 2);
+        benches.put("rotatePiece", () -> {
+            rot.rotatePiece();
+            return rot.getCurrentRotation();
+        });
+
+        ghost("getGhostY.empty", empty);
+        ghost("getGhostY.mid", mid);
+        ghost("getGhostY.high", high);
+
+        GameBoard cachedModel = new GameBoard();
+        GamePresenter cached = presenter(cachedModel);
+        cachedModel.board.copyFrom(mid);
+        cached.setPiece(2, 4, 0);
+        benches.put("getGhostY.cached", cached::getGhostY);
+
+        lock("placePiece.plain", mid, 2, false);
+        lock("placePiece.bomb", mid, 2, true);
+        lock("checkLines.double", twoLineGap, 1, false);
+        lock("checkLines.tetris", fourLineGap, 0, 1, 0, false);
+
+        GameBoard eraseModel = new GameBoard();
+        GamePresenter erase = presenter(eraseModel);
+        eraseModel.board.copyFrom(high);
+        eraseModel.addPerk(Perk.LINE_ERASE);
+        erase.setPiece(2, 4, 0);
+        batched("eraseLine", erase.snapshot(), game -> {
+            game.usePerk(0);
+            return game.getModel().board.getRow(GameBoard.BOARD_HEIGHT - 1);
+        });
+    }
+
+    // Respawns the piece in alternating columns so every call recomputes the landing row
+    private void ghost(String name, BitBoard template) {
+        GameBoard model = new GameBoard();
+        GamePresenter p = presenter(model);
+        model.board.copyFrom(template);
+        int[] column = { 3 };
+        benches.put(name, () -> {
+            column[0] ^= 7;
+            p.setPiece(2, column[0], 0);
+            return p.getGhostY();
+        });
+    }
+
+    // Times one lock: a piece resting on the stack and a tick, so the
+    // presenter places it, checks lines and spawns the next piece.
+    private void lock(String name, BitBoard template, int type, boolean bomb) {
+        lock(name, template, type, 0, type == 1 ? 0 : 4, bomb);
+    }
+
+    private void lock(String name, BitBoard template, int type, int rotation, int x, boolean bomb) {
+        GameBoard model = new GameBoard();
+        GamePresenter p = presenter(model);
+        model.board.copyFrom(template);
+        p.setPiece(type, rotation, x, 0);
+        p.setPiece(type, rotation, x, p.getGhostY());
+        if (bomb)
+            model.activate(Perk.BOMB);
+        batched(name, p.snapshot(), game -> {
+            game.tick();
+            return game.getModel().score;
+        });
+    }
+
+    // For ops that use up their game: each op of a batch gets its own game,
+    // restored to the start state between batches, outside the timing
+    private void batched(String name, GameSnapshot start, ToIntFunction<GamePresenter> op) {
+        GamePresenter[] games = new GamePresenter[BATCH];
+        for (int i = 0; i < BATCH; i++)
+            games[i] = presenter(new GameBoard());
+        benches.put(name, new Bench() {
+            int next;
+
+            public int op() {
+                return op.applyAsInt(games[next++]);
+            }
+
+            public void reset() {
+                for (GamePresenter game : games)
+                    game.restore(start);
+                next = 0;
+            }
+        });
+    }
+
+    private static GamePresenter presenter(GameBoard model) {
+        return new GamePresenter(model, "Bench", NO_VIEW, new FixedStepClock(), 42);
+    }
+
+    // Stack of the given height with one to three random holes per row
+    private static BitBoard filled(int height, long seed) {
+        Random r = new Random(seed);
+        BitBoard b = new BitBoard();
+        for (int y = GameBoard.BOARD_HEIGHT - height; y < GameBoard.BOARD_HEIGHT; y++) {
+            for (int x = 0; x < GameBoard.BOARD_WIDTH; x++)
+                b.set(x, y, 1 + r.nextInt(7));
+            int holes = 1 + r.nextInt(3);
+            for (int i = 0; i < holes; i++)
+                b.clear(r.nextInt(GameBoard.BOARD_WIDTH), y);
+        }
+        return b;
+    }
+
+    // { median ops/s, spread }
+    private static double[] measure(Bench bench, long millis) {
+        for (int i = 0; i < WARMUPS; i++)
+            run(bench, millis);
+        double[] results = new double[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++)
+            results[i] = run(bench, millis);
+        return summarize(results);
+    }
+
+    // Gravity ticks per second over whole games from a fixed seed sequence
+    private static double[] measureThroughput(long millis) {
+        long[] seed = { 1 };
+        for (int i = 0; i < WARMUPS; i++)
+            runGames(seed, millis);
+        double[] results = new double[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++)
+            results[i] = runGames(seed, millis);
+        return summarize(results);
+    }
+
+    private static double runGames(long[] seed, long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long start = System.nanoTime();
+        long ticks = 0;
+        long now;
+        do {
+            HeadlessEngine engine = new HeadlessEngine("Bench", seed[0]++);
+            engine.run();
+            ticks += engine.getClock().getTicks();
+            now = System.nanoTime();
+        } while (now < deadline);
+        return ticks * 1e9 / (now - start);
+    }
+
+    private static double[] summarize(double[] results) {
+        Arrays.sort(results);
+        double median = results[results.length / 2];
+        double spread = (results[results.length * 3 / 4] - results[results.length / 4]) / 2 / median;
+        return new double[] { median, spread };
+    }
+
+    // Only the ops are timed, not the resets between batches
+    private static double run(Bench bench, long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long timed = 0;
+        long ops = 0;
+        int acc = 0;
+        long end;
+        do {
+            bench.reset();
+            long start = System.nanoTime();
+            for (int i = 0; i < BATCH; i++)
+                acc += bench.op();
+            end = System.nanoTime();
+            timed += end - start;
+            ops += BATCH;
+        } while (end < deadline);
+        sink = acc;
+        return ops * 1e9 / timed;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long millis = 500;
+        String save = null, baseline = null, filter = null, child = null;
+        double tolerance = 0.30;
+        boolean inProcess = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--time":
+                    millis = Long.parseLong(args[++i]);
+                    break;
+                case "--save":
+                    save = args[++i];
+                    break;
+                case "--baseline":
+                    baseline = args[++i];
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(args[++i]);
+                    break;
+                case "--in-process":
+                    inProcess = true;
+                    break;
+                case "--child":
+                    child = args[++i];
+                    break;
+                default:
+                    filter = args[i];
+            }
+        }
+
+        if (child != null) {
+            // one benchmark for the parent process, which reads this line
+            double[] m = measureHere(child, millis);
+            System.out.println("RESULT " + m[0] + " " + m[1]);
+            return;
+        }
+
+        Properties base = new Properties();
+        if (baseline != null)
+            try (Reader in = new FileReader(baseline)) {
+                base.load(in);
+            }
+
+        List<String> names = new ArrayList<>(new GameBenchmark().benches.keySet());
+        names.add(THROUGHPUT);
+        Properties results = new Properties();
+        List<String> regressions = new ArrayList<>();
+        System.out.println("Per operation:");
+        for (String name : names) {
+            if (filter != null && !name.contains(filter))
+                continue;
+            if (name.equals(THROUGHPUT))
+                System.out.println("Whole games:");
+            double[] m = inProcess ? measureHere(name, millis) : fork(name, millis);
+            results.setProperty(name, String.format("%.0f", m[0]));
+            results.setProperty(name + ".spread", String.format("%.4f", m[1]));
+            String line = String.format("%-22s %,16.0f %s  +-%4.1f%%", name, m[0],
+                    name.equals(THROUGHPUT) ? "ticks/s" : "ops/s  ", m[1] * 100);
+            String prev = base.getProperty(name);
+            if (prev != null) {
+                double ratio = m[0] / Double.parseDouble(prev);
+                double baseSpread = Double.parseDouble(base.getProperty(name + ".spread", "0"));
+                double allowed = Math.max(tolerance, 2 * Math.max(m[1], baseSpread));
+                line += String.format("   %+6.1f%% (allowed -%.0f%%)", (ratio - 1) * 100, allowed * 100);
+                if (ratio < 1 - allowed)
+                    regressions.add(name);
+            }
+            System.out.println(line);
+        }
+
+        if (save != null)
+            try (Writer out = new FileWriter(save)) {
+                results.store(out, "GameBenchmark ops/s (ticks/s for " + THROUGHPUT + ") and relative spread");
+            }
+
+        if (!regressions.isEmpty()) {
+            System.out.println("REGRESSION (slower than the tolerance and the measured noise): " + regressions);
+            System.exit(1);
+        }
+    }
+
+    private static double[] measureHere(String name, long millis) {
+        return name.equals(THROUGHPUT) ? measureThroughput(millis)
+                : measure(new GameBenchmark().benches.get(name), millis);
+    }
+
+    // Runs one benchmark in a fresh JVM with the same class path and JVM options
+    private static double[] fork(String name, long millis) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(GameBenchmark.class.getName());
+        command.add("--child");
+        command.add(name);
+        command.add("--time");
+        command.add(Long.toString(millis));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            for (String line; (line = in.readLine()) != null;)
+                if (line.startsWith("RESULT "))
+                    result = line;
+        }
+        if (process.waitFor() != 0 || result == null)
+            throw new IOException("benchmark " + name + " failed in its own JVM");
+        String[] f = result.split(" ");
+        return new double[] { Double.parseDouble(f[1]), Double.parseDouble(f[2]) };
+    }
+}
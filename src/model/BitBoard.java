@@ -0,0 +1,248 @@
+package src.model;
+
+import java.util.Arrays;
+
+// Playfield stored as one bitmask per row (bit x = column x) plus a separate
+// color plane. Collision and full-line checks work on whole rows at once.
+// The same cells are also kept as one bitmask per column (bit y = row y),
+// so finding where a piece lands is a bit scan per column, and a column's
+// height, hole count and a row's fill count are each a bit count. The board
+// totals of heights and holes are kept up to date on every change, so
+// evaluating a board for a bot or for statistics costs nothing extra.
+// copy() is copy-on-write: both boards share arrays until one of them changes.
+public class BitBoard {
+
+    public static final int WIDTH = GameBoard.BOARD_WIDTH;
+    public static final int HEIGHT = GameBoard.BOARD_HEIGHT;
+    public static final int FULL_ROW = (1 << WIDTH) - 1;
+
+    private int[] rows = new int[HEIGHT];
+    private int[] cols = new int[WIDTH];
+    private byte[] colors = new byte[HEIGHT * WIDTH];
+    private boolean shared = false;
+    private int aggregateHeight = 0, holes = 0; // sums of height() and holes() over all columns
+    private int version = 0; // bumped on every change, lets renderers skip unchanged boards
+
+    public BitBoard copy() {
+        BitBoard c = new BitBoard(rows, cols, colors, version);
+        c.aggregateHeight = aggregateHeight;
+        c.holes = holes;
+        shared = true;
+        return c;
+    }
+
+    public BitBoard() {
+    }
+
+    private BitBoard(int[] rows, int[] cols, byte[] colors, int version) {
+        this.rows = rows;
+        this.cols = cols;
+        this.colors = colors;
+        this.version = version;
+        this.shared = true;
+    }
+
+    // Takes private copies of shared arrays before the first write
+    private void own() {
+        if (shared) {
+            rows = rows.clone();
+            cols = cols.clone();
+            colors = colors.clone();
+            shared = false;
+        }
+    }
+
+    public int get(int x, int y) {
+        return colors[y * WIDTH + x];
+    }
+
+    public boolean isOccupied(int x, int y) {
+        return (rows[y] & (1 << x)) != 0;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getRow(int y) {
+        return rows[y];
+    }
+
+    public boolean isFull(int y) {
+        return rows[y] == FULL_ROW;
+    }
+
+    // Filled cells in row y
+    public int rowFill(int y) {
+        return Integer.bitCount(rows[y]);
+    }
+
+    // Rows from the floor up to and including the column's top cell, 0 if empty
+    public int height(int x) {
+        return columnHeight(cols[x]);
+    }
+
+    // Empty cells below the column's top cell
+    public int holes(int x) {
+        return columnHoles(cols[x]);
+    }
+
+    public int aggregateHeight() {
+        return aggregateHeight;
+    }
+
+    public int holes() {
+        return holes;
+    }
+
+    // Sum of height differences between neighbouring columns
+    public int bumpiness() {
+        int sum = 0, prev = height(0);
+        for (int x = 1; x < WIDTH; x++) {
+            int h = height(x);
+            sum += Math.abs(h - prev);
+            prev = h;
+        }
+        return sum;
+    }
+
+    private static int columnHeight(int col) {
+        return col == 0 ? 0 : HEIGHT - Integer.numberOfTrailingZeros(col);
+    }
+
+    private static int columnHoles(int col) {
+        return columnHeight(col) - Integer.bitCount(col);
+    }
+
+    public void set(int x, int y, int color) {
+        own();
+        rows[y] |= 1 << x;
+        setColumn(x, cols[x] | 1 << y);
+        colors[y * WIDTH + x] = (byte) color;
+        version++;
+    }
+
+    public void clear(int x, int y) {
+        own();
+        rows[y] &= ~(1 << x);
+        setColumn(x, cols[x] & ~(1 << y));
+        colors[y * WIDTH + x] = 0;
+        version++;
+    }
+
+    private void setColumn(int x, int col) {
+        int old = cols[x];
+        cols[x] = col;
+        aggregateHeight += columnHeight(col) - columnHeight(old);
+        holes += columnHoles(col) - columnHoles(old);
+    }
+
+    // True if a piece row (bit j = column j of the piece) placed at column nx
+    // on row y hits a wall, the floor or a filled cell. Rows above the top are open.
+    public boolean collides(int mask, int nx, int y) {
+        if (mask == 0)
+            return false;
+        if (y >= HEIGHT)
+            return true;
+        int shifted;
+        if (nx < 0) {
+            if ((mask & ((1 << -nx) - 1)) != 0)
+                return true;
+            shifted = mask >>> -nx;
+        } else {
+            shifted = mask << nx;
+        }
+        if ((shifted & ~FULL_ROW) != 0)
+            return true;
+        return y >= 0 && (rows[y] & shifted) != 0;
+    }
+
+    // Rows a piece of this type and rotation at (nx, y) can fall before it
+    // lands; the piece must currently fit.
+    public int dropDistance(int type, int rotation, int nx, int y) {
+        int distance = HEIGHT;
+        for (int j = 0, w = PieceRotations.width(type, rotation); j < w; j++) {
+            int below = Math.max(0, y + PieceRotations.bottom(type, rotation, j) + 1); // first row under that cell
+            int blocked = cols[nx + j] >>> below;
+            int free = blocked == 0 ? HEIGHT - below : Integer.numberOfTrailingZeros(blocked);
+            if (free < distance)
+                distance = free;
+        }
+        return distance;
+    }
+
+    // Removes row y and drops every row above it by one, leaving an empty top row.
+    public void clearRow(int y) {
+        clearRows(1 << y);
+    }
+
+    // Rows that are completely filled, as a mask with bit y set for row y.
+    // A row is full exactly where every column has its bit set.
+    public int fullRows() {
+        int full = cols[0];
+        for (int x = 1; x < WIDTH && full != 0; x++)
+            full &= cols[x];
+        return full;
+    }
+
+    // Removes every row in the mask (bit y = row y) and drops the rows above
+    // them into place in one pass, leaving empty rows at the top.
+    public void clearRows(int mask) {
+        mask &= (1 << HEIGHT) - 1;
+        if (mask == 0)
+            return;
+        own();
+        int to = HEIGHT - 1;
+        for (int y = HEIGHT - 1; y >= 0; y--) {
+            if ((mask & 1 << y) != 0)
+                continue;
+            if (to != y) {
+                rows[to] = rows[y];
+                System.arraycopy(colors, y * WIDTH, colors, to * WIDTH, WIDTH);
+            }
+            to--;
+        }
+        Arrays.fill(rows, 0, to + 1, 0);
+        Arrays.fill(colors, 0, (to + 1) * WIDTH, (byte) 0);
+        // Same compaction on the column planes: removing a row shifts the
+        // bits above it down by one, top cleared row first so lower ones stay put
+        for (int x = 0; x < WIDTH; x++) {
+            int c = cols[x];
+            for (int m = mask; m != 0; m &= m - 1) {
+                int bit = m & -m;
+                int above = bit - 1;
+                c = (c & ~(above | bit)) | (c & above) << 1;
+            }
+            setColumn(x, c);
+        }
+        version++;
+    }
+
+    public void copyFrom(BitBoard other) {
+        own();
+        System.arraycopy(other.rows, 0, rows, 0, HEIGHT);
+        System.arraycopy(other.cols, 0, cols, 0, WIDTH);
+        System.arraycopy(other.colors, 0, colors, 0, colors.length);
+        aggregateHeight = other.aggregateHeight;
+        holes = other.holes;
+        version++;
+    }
+
+    public void reset() {
+        own();
+        Arrays.fill(rows, 0);
+        Arrays.fill(cols, 0);
+        Arrays.fill(colors, (byte) 0);
+        aggregateHeight = 0;
+        holes = 0;
+        version++;
+    }
+
+    public static int rowMask(int[] pieceRow) {
+        int mask = 0;
+        for (int j = 0; j < pieceRow.length; j++)
+            if (pieceRow[j] != 0)
+                mask |= 1 << j;
+        return mask;
+    }
+}
@@ -1,16 +1,17 @@
 package src.model;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class GameBoard {
 
-    public static LinkedList<PlayerRecord> database = new LinkedList<>();
-
     public static final int BOARD_WIDTH = 10;
     public static final int BOARD_HEIGHT = 20;
 
-    public int[][] board = new int[BOARD_HEIGHT][BOARD_WIDTH];
+    // Random id used to recognise this game's result if it is submitted twice
+    public final long gameId;
+
+    public final BitBoard board;
     public int score = 0;
     public int level = 1;
     public int lives = 3;
@@ -18,29 +19,24 @@ public class GameBoard {
     public boolean bonusLifeGiven5000 = false;
 
     // PERKS
-    public LinkedList<String> perks = new LinkedList<>();
-    public final int MAX_PERKS = 3;
-
-    public boolean slowTime = false;
-    public boolean doubleScore = false;
-    public boolean shield = false;
-    public boolean bomb = false;
-    public boolean lucky = false;
-
-    public int slowTimer = 0;
-    public int doubleTimer = 0;
-    public int perkCooldown = 0;
-    public final int PERK_COOLDOWN_MAX = 15;
-
-    // Real-time 30-second countdown timers (in seconds)
-    public static final int PERK_DURATION = 30;
-    public int slowTimeSeconds = 0;
-    public int doubleScoreSeconds = 0;
-    public int shieldSeconds = 0;
-    public int bombSeconds = 0;
-    public int luckySeconds = 0;
-
-    public final int[][][] SHAPES = {
+    public static final int MAX_PERKS = 3;
+    public final Perk[] perkSlots = new Perk[MAX_PERKS]; // held perks, filled from slot 0
+    public int perkCount = 0;
+
+    // Every timed effect runs on one wheel: timer ids 0..Perk.COUNT-1 are the
+    // active perks, COOLDOWN_TIMER blocks perk use after one is spent and
+    // LOCK_TIMER is the lock delay of a piece resting on the stack
+    public static final int COOLDOWN_TIMER = Perk.COUNT;
+    public static final int LOCK_TIMER = Perk.COUNT + 1;
+    public static final int TIMER_COUNT = Perk.COUNT + 2;
+    public static final int PERK_COOLDOWN_TICKS = 15; // scheduled as this many gravity intervals
+    public final TimerWheel timers = new TimerWheel(TIMER_COUNT);
+
+    // Per-game totals, used by batch runs
+    public int perksGranted = 0;
+    public int perksUsed = 0;
+
+    private static final int[][][] SHAPES = {
             { { 1, 1, 1, 1 } },
             { { 1, 1 }, { 1, 1 } },
             { { 0, 1, 0 }, { 1, 1, 1 } },
@@ -49,16 +45,97 @@ public class GameBoard {
             { { 0, 1, 1 }, { 1, 1, 0 } },
             { { 1, 1, 0 }, { 0, 1, 1 } }
     };
+    public static final int SHAPE_COUNT = SHAPES.length;
+
+    // A fresh copy of the spawn shape of a piece type, 1 = filled
+    public static int[][] shape(int type) {
+        int[][] copy = new int[SHAPES[type].length][];
+        for (int i = 0; i < copy.length; i++)
+            copy[i] = SHAPES[type][i].clone();
+        return copy;
+    }
+
+    public GameBoard() {
+        this(ThreadLocalRandom.current().nextLong() | 1, new BitBoard());
+    }
+
+    private GameBoard(long gameId, BitBoard board) {
+        this.gameId = gameId;
+        this.board = board;
+    }
+
+    // Cheap independent copy for lookahead: the playfield is shared
+    // copy-on-write, everything else is a handful of scalars.
+    public GameBoard copy() {
+        GameBoard c = new GameBoard(gameId, board.copy());
+        c.score = score;
+        c.level = level;
+        c.lives = lives;
+        c.isFlickerMode = isFlickerMode;
+        c.bonusLifeGiven5000 = bonusLifeGiven5000;
+        System.arraycopy(perkSlots, 0, c.perkSlots, 0, MAX_PERKS);
+        c.perkCount = perkCount;
+        c.timers.copyFrom(timers);
+        c.perksGranted = perksGranted;
+        c.perksUsed = perksUsed;
+        return c;
+    }
 
     public void resetBoard() {
-        for (int i = 0; i < BOARD_HEIGHT; i++)
-            for (int j = 0; j < BOARD_WIDTH; j++)
-                board[i][j] = 0;
+        board.reset();
+    }
+
+    // false when every slot is taken
+    public boolean addPerk(Perk perk) {
+        if (perkCount >= MAX_PERKS)
+            return false;
+        perkSlots[perkCount++] = perk;
+        return true;
+    }
+
+    // Removes the perk in the slot and moves later ones up, null for an empty slot
+    public Perk takePerk(int slot) {
+        if (slot < 0 || slot >= perkCount)
+            return null;
+        Perk perk = perkSlots[slot];
+        System.arraycopy(perkSlots, slot + 1, perkSlots, slot, perkCount - slot - 1);
+        perkSlots[--perkCount] = null;
+        return perk;
+    }
+
+    public void clearPerks() {
+        Arrays.fill(perkSlots, null);
+        perkCount = 0;
+        timers.clear();
+    }
+
+    public boolean isActive(Perk perk) {
+        return timers.isScheduled(perk.ordinal());
+    }
+
+    // Starts or restarts a timed perk's countdown
+    public void activate(Perk perk) {
+        timers.schedule(perk.ordinal(), perk.duration);
+    }
+
+    // Ends a perk early, e.g. a bomb that went off; true if it was active
+    public boolean consume(Perk perk) {
+        if (!isActive(perk))
+            return false;
+        timers.cancel(perk.ordinal());
+        return true;
+    }
+
+    // Whole seconds left on an active perk, for display
+    public int secondsLeft(Perk perk) {
+        return (int) ((timers.remaining(perk.ordinal()) + 999) / 1000);
+    }
+
+    public boolean isCoolingDown() {
+        return timers.isScheduled(COOLDOWN_TIMER);
     }
 
-    public static LinkedList<PlayerRecord> getSortedRecords() {
-        LinkedList<PlayerRecord> sorted = new LinkedList<>(database);
-        Collections.sort(sorted, (a, b) -> Integer.compare(b.score, a.score));
-        return sorted;
+    public int cooldownSecondsLeft() {
+        return (int) ((timers.remaining(COOLDOWN_TIMER) + 999) / 1000);
     }
 }
\ No newline at end of file
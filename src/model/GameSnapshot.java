@@ -0,0 +1,248 @@
+package src.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Immutable, compact copy of a full game: the board with each row's colors
+// packed 3 bits per cell into one int, perks as Perk ordinals, the time left
+// on each game timer, plus the falling piece with its lock-delay state, the
+// preview queue and the states the RNG and the piece generator continue from.
+// Built and applied by GamePresenter.
+public final class GameSnapshot {
+
+    private static final int MAGIC = 0x54534E50; // "TSNP"
+    // 2: timers in ms of game time
+    // 3: piece generator seed, preview queue and pending generator pieces
+    // 4: lock-delay state of the falling piece
+    // 5: RNG states instead of seeds drawn at save time
+    private static final int VERSION = 5;
+
+    // flag bits
+    private static final int FLICKER = 1, BONUS_LIFE = 2;
+
+    public final String playerName;
+    public final long rngState; // perk rolls
+    public final long pieceState; // piece generator
+    public final int pieceType, pieceRotation, pieceX, pieceY;
+    public final int delay; // gravity interval, which is also how fast game time runs
+    public final boolean lockDue; // LOCK_TIMER fired, the next tick locks the piece
+    public final int lockResets; // lock delay restarts used by the falling piece
+
+    final int[] rows = new int[GameBoard.BOARD_HEIGHT];
+    final int score, perksGranted, perksUsed;
+    final byte level, lives;
+    final short flags;
+    final int[] timers = new int[GameBoard.TIMER_COUNT]; // ms left per TimerWheel id, 0 = idle
+    final byte[] perks;
+    final byte[] preview, pending; // piece types
+
+    public GameSnapshot(GameBoard model, String playerName, long rngState, long pieceState, int[] preview,
+            int[] pending, int pieceType, int pieceRotation, int pieceX, int pieceY, int delay, boolean lockDue,
+            int lockResets) {
+        this.playerName = playerName;
+        this.rngState = rngState;
+        this.pieceState = pieceState;
+        this.preview = toBytes(preview);
+        this.pending = toBytes(pending);
+        this.pieceType = pieceType;
+        this.pieceRotation = pieceRotation;
+        this.pieceX = pieceX;
+        this.pieceY = pieceY;
+        this.delay = delay;
+        this.lockDue = lockDue;
+        this.lockResets = lockResets;
+
+        for (int y = 0; y < GameBoard.BOARD_HEIGHT; y++) {
+            int packed = 0;
+            for (int x = 0; x < GameBoard.BOARD_WIDTH; x++)
+                packed |= model.board.get(x, y) << (x * 3);
+            rows[y] = packed;
+        }
+        score = model.score;
+        perksGranted = model.perksGranted;
+        perksUsed = model.perksUsed;
+        level = (byte) model.level;
+        lives = (byte) model.lives;
+        flags = (short) ((model.isFlickerMode ? FLICKER : 0) | (model.bonusLifeGiven5000 ? BONUS_LIFE : 0));
+        for (int id = 0; id < timers.length; id++)
+            timers[id] = (int) model.timers.remaining(id);
+        perks = new byte[model.perkCount];
+        for (int i = 0; i < perks.length; i++)
+            perks[i] = (byte) model.perkSlots[i].ordinal();
+    }
+
+    private GameSnapshot(DataInputStream in) throws IOException {
+        playerName = in.readUTF();
+        rngState = in.readLong();
+        pieceState = in.readLong();
+        preview = new byte[in.readUnsignedByte()];
+        in.readFully(preview);
+        pending = new byte[in.readUnsignedShort()];
+        in.readFully(pending);
+        pieceType = in.readByte();
+        pieceRotation = in.readByte();
+        pieceX = in.readByte();
+        pieceY = in.readByte();
+        delay = in.readShort();
+        lockDue = in.readBoolean();
+        lockResets = in.readUnsignedByte();
+        for (int y = 0; y < rows.length; y++)
+            rows[y] = in.readInt();
+        score = in.readInt();
+        perksGranted = in.readInt();
+        perksUsed = in.readInt();
+        level = in.readByte();
+        lives = in.readByte();
+        flags = in.readShort();
+        int count = in.readUnsignedByte();
+        for (int id = 0; id < count; id++) {
+            int left = in.readInt();
+            if (id < timers.length)
+                timers[id] = left;
+        }
+        perks = new byte[in.readUnsignedByte()];
+        in.readFully(perks);
+    }
+
+    // Overwrites the model's board, score, perks and timers with this snapshot.
+    // The model keeps its own game id.
+    public void applyTo(GameBoard model) {
+        model.board.reset();
+        for (int y = 0; y < GameBoard.BOARD_HEIGHT; y++) {
+            int packed = rows[y];
+            for (int x = 0; packed != 0; x++, packed >>>= 3)
+                if ((packed & 7) != 0)
+                    model.board.set(x, y, packed & 7);
+        }
+        model.score = score;
+        model.perksGranted = perksGranted;
+        model.perksUsed = perksUsed;
+        model.level = level;
+        model.lives = lives;
+        model.isFlickerMode = (flags & FLICKER) != 0;
+        model.bonusLifeGiven5000 = (flags & BONUS_LIFE) != 0;
+        model.clearPerks();
+        for (byte p : perks)
+            model.addPerk(Perk.of(p));
+        for (int id = 0; id < timers.length; id++)
+            if (timers[id] > 0)
+                model.timers.schedule(id, timers[id]);
+    }
+
+    // Upcoming pieces, next first
+    public int[] preview() {
+        return toInts(preview);
+    }
+
+    // Pieces the generator had decided but not yet queued
+    public int[] pending() {
+        return toInts(pending);
+    }
+
+    private static byte[] toBytes(int[] types) {
+        byte[] b = new byte[types.length];
+        for (int i = 0; i < b.length; i++)
+            b[i] = (byte) types[i];
+        return b;
+    }
+
+    private static int[] toInts(byte[] types) {
+        int[] t = new int[types.length];
+        for (int i = 0; i < t.length; i++)
+            t[i] = types[i];
+        return t;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(playerName);
+            out.writeLong(rngState);
+            out.writeLong(pieceState);
+            out.writeByte(preview.length);
+            out.write(preview);
+            out.writeShort(pending.length);
+            out.write(pending);
+            out.writeByte(pieceType);
+            out.writeByte(pieceRotation);
+            out.writeByte(pieceX);
+            out.writeByte(pieceY);
+            out.writeShort(delay);
+            out.writeBoolean(lockDue);
+            out.writeByte(lockResets);
+            for (int row : rows)
+                out.writeInt(row);
+            out.writeInt(score);
+            out.writeInt(perksGranted);
+            out.writeInt(perksUsed);
+            out.writeByte(level);
+            out.writeByte(lives);
+            out.writeShort(flags);
+            out.writeByte(timers.length);
+            for (int left : timers)
+                out.writeInt(left);
+            out.writeByte(perks.length);
+            out.write(perks);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    // Written to a temp file, forced to disk and only then moved into place,
+    // so the rename can never reach the disk before the data and a power cut
+    // leaves either the previous snapshot or this one. Blocks on the disk, so
+    // keep it off the event thread.
+    public void writeTo(File file) throws IOException {
+        Path tmp = new File(file.getPath() + ".tmp").toPath();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = ByteBuffer.wrap(toBytes());
+            while (data.hasRemaining())
+                out.write(data);
+            out.force(true);
+        }
+        Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Make the rename itself durable; not every platform can open a directory
+        Path dir = file.getAbsoluteFile().toPath().getParent();
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException e) {
+            // the data is safe either way, only the rename may be undone
+        }
+    }
+
+    // null if there is no usable snapshot in the file
+    public static GameSnapshot read(File file) {
+        if (!file.isFile())
+            return null;
+        try {
+            return fromBytes(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            System.err.println("Ignoring snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static GameSnapshot fromBytes(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC)
+            throw new IOException("not a snapshot");
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+            throw new IOException("unsupported snapshot version " + version);
+        return new GameSnapshot(in);
+    }
+}
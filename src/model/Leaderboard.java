@@ -0,0 +1,136 @@
+package src.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Records ordered by RecordStore.BY_RANK in a treap whose nodes also count
+// their subtree size. Insert, rank-of and select are O(log n) expected, and a
+// page of top-N results costs O(log n + page size). Not thread-safe on its own;
+// RecordStore guards it.
+public class Leaderboard {
+
+    private static final class Node {
+        final PlayerRecord record;
+        final int priority;
+        int size = 1;
+        Node left, right;
+
+        Node(PlayerRecord record, int priority) {
+            this.record = record;
+            this.priority = priority;
+        }
+    }
+
+    private Node root;
+    private int seed = 0x2545F491;
+
+    public int size() {
+        return size(root);
+    }
+
+    public void add(PlayerRecord r) {
+        root = insert(root, new Node(r, nextPriority()));
+    }
+
+    // 1-based rank of a record that is on the board
+    public int rankOf(PlayerRecord r) {
+        int rank = 1;
+        Node n = root;
+        while (n != null) {
+            int c = RecordStore.BY_RANK.compare(r, n.record);
+            if (c <= 0) {
+                if (c == 0)
+                    return rank + size(n.left);
+                n = n.left;
+            } else {
+                rank += size(n.left) + 1;
+                n = n.right;
+            }
+        }
+        return rank;
+    }
+
+    // Record at a 1-based rank, or null if out of range
+    public PlayerRecord get(int rank) {
+        Node n = root;
+        int k = rank - 1;
+        while (n != null) {
+            int leftSize = size(n.left);
+            if (k < leftSize) {
+                n = n.left;
+            } else if (k == leftSize) {
+                return n.record;
+            } else {
+                k -= leftSize + 1;
+                n = n.right;
+            }
+        }
+        return null;
+    }
+
+    // Up to count records starting at a 1-based rank, best first
+    public List<PlayerRecord> page(int fromRank, int count) {
+        List<PlayerRecord> result = new ArrayList<>(Math.max(0, Math.min(count, size() - fromRank + 1)));
+        collect(root, fromRank - 1, count, result);
+        return result;
+    }
+
+    // In-order walk that skips whole subtrees lying before the requested start
+    private static void collect(Node n, int skip, int count, List<PlayerRecord> out) {
+        if (n == null || out.size() >= count)
+            return;
+        int leftSize = size(n.left);
+        if (skip < leftSize)
+            collect(n.left, skip, count, out);
+        if (skip <= leftSize && out.size() < count)
+            out.add(n.record);
+        if (out.size() < count)
+            collect(n.right, Math.max(0, skip - leftSize - 1), count, out);
+    }
+
+    private static Node insert(Node n, Node node) {
+        if (n == null)
+            return node;
+        n.size++;
+        if (RecordStore.BY_RANK.compare(node.record, n.record) < 0) {
+            n.left = insert(n.left, node);
+            if (n.left.priority > n.priority)
+                n = rotateRight(n);
+        } else {
+            n.right = insert(n.right, node);
+            if (n.right.priority > n.priority)
+                n = rotateLeft(n);
+        }
+        return n;
+    }
+
+    private static Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        l.size = n.size;
+        n.size = size(n.left) + size(n.right) + 1;
+        return l;
+    }
+
+    private static Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        r.size = n.size;
+        n.size = size(n.left) + size(n.right) + 1;
+        return r;
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    // xorshift, so priorities don't depend on a shared Random
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
@@ -0,0 +1,70 @@
+package src.model;
+
+// Every perk a player can be granted. Each constant is its own effect object:
+// apply() runs when the perk is used, expire() when its duration (in ms of
+// game time, see TimerWheel) runs out. Perks without a duration take effect
+// instantly.
+public enum Perk {
+
+    SLOW_TIME("Slow Time", 30_000) {
+        @Override
+        public void apply(Host host) {
+            host.setDelay(1000);
+        }
+
+        @Override
+        public void expire(Host host) {
+            host.setDelay(host.levelDelay());
+        }
+    },
+    BOMB("Bomb", 30_000),
+    LINE_ERASE("Line Erase", 0) {
+        @Override
+        public void apply(Host host) {
+            host.eraseLine();
+        }
+    },
+    DOUBLE_SCORE("Double Score", 30_000),
+    SHIELD("Shield", 30_000),
+    LUCKY("Lucky", 30_000);
+
+    // What an effect may do to the running game
+    public interface Host {
+        void setDelay(int delay);
+
+        void eraseLine();
+
+        int levelDelay(); // gravity delay of the current level
+    }
+
+    // Shared so lookups by index never clone values()
+    static final Perk[] VALUES = values();
+    public static final int COUNT = VALUES.length;
+
+    public final String displayName;
+    public final int duration;
+
+    Perk(String displayName, int duration) {
+        this.displayName = displayName;
+        this.duration = duration;
+    }
+
+    public boolean isTimed() {
+        return duration > 0;
+    }
+
+    public void apply(Host host) {
+    }
+
+    public void expire(Host host) {
+    }
+
+    public static Perk of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,106 @@
+package src.model;
+
+// Every rotation of every GameBoard shape, built once at class load.
+// Rotation r is the spawn shape turned clockwise r times, matching the
+// presenter's old in-place rotation. The tables stay private; callers read
+// them one entry at a time, so nothing is copied on the hot paths.
+public final class PieceRotations {
+
+    public static final int COUNT = 4;
+
+    private static final int TYPES = GameBoard.SHAPE_COUNT;
+
+    private static final int[][][][] SHAPES = new int[TYPES][COUNT][][];
+    private static final int[][][] ROW_MASKS = new int[TYPES][COUNT][];
+    private static final int[][][] CELL_X = new int[TYPES][COUNT][];
+    private static final int[][][] CELL_Y = new int[TYPES][COUNT][];
+    private static final int[][][] BOTTOMS = new int[TYPES][COUNT][];
+
+    static {
+        for (int t = 0; t < TYPES; t++) {
+            int[][] shape = GameBoard.shape(t);
+            for (int r = 0; r < COUNT; r++) {
+                SHAPES[t][r] = shape;
+                ROW_MASKS[t][r] = new int[shape.length];
+                int cells = 0;
+                for (int i = 0; i < shape.length; i++) {
+                    ROW_MASKS[t][r][i] = BitBoard.rowMask(shape[i]);
+                    cells += Integer.bitCount(ROW_MASKS[t][r][i]);
+                }
+                CELL_X[t][r] = new int[cells];
+                CELL_Y[t][r] = new int[cells];
+                int n = 0;
+                for (int i = 0; i < shape.length; i++)
+                    for (int j = 0; j < shape[0].length; j++)
+                        if (shape[i][j] != 0) {
+                            CELL_X[t][r][n] = j;
+                            CELL_Y[t][r][n] = i;
+                            n++;
+                        }
+                BOTTOMS[t][r] = new int[shape[0].length];
+                for (int j = 0; j < shape[0].length; j++)
+                    for (int i = 0; i < shape.length; i++)
+                        if (shape[i][j] != 0)
+                            BOTTOMS[t][r][j] = i;
+                shape = rotate(shape);
+            }
+        }
+    }
+
+    private PieceRotations() {
+    }
+
+    private static int[][] rotate(int[][] piece) {
+        int r = piece.length;
+        int c = piece[0].length;
+        int[][] rotated = new int[c][r];
+        for (int i = 0; i < r; i++)
+            for (int j = 0; j < c; j++)
+                rotated[j][r - 1 - i] = piece[i][j];
+        return rotated;
+    }
+
+    public static int next(int rotation) {
+        return (rotation + 1) & (COUNT - 1);
+    }
+
+    // A fresh copy of the shape, 1 = filled
+    public static int[][] shape(int type, int rotation) {
+        int[][] shape = SHAPES[type][rotation];
+        int[][] copy = new int[shape.length][];
+        for (int i = 0; i < shape.length; i++)
+            copy[i] = shape[i].clone();
+        return copy;
+    }
+
+    // Bitmask of shape row i, bit j = column j
+    public static int rowMask(int type, int rotation, int i) {
+        return ROW_MASKS[type][rotation][i];
+    }
+
+    public static int width(int type, int rotation) {
+        return SHAPES[type][rotation][0].length;
+    }
+
+    public static int height(int type, int rotation) {
+        return SHAPES[type][rotation].length;
+    }
+
+    public static int cells(int type, int rotation) {
+        return CELL_X[type][rotation].length;
+    }
+
+    // Offset of filled cell n from the shape's top-left corner, cells in row-major order
+    public static int cellX(int type, int rotation, int n) {
+        return CELL_X[type][rotation][n];
+    }
+
+    public static int cellY(int type, int rotation, int n) {
+        return CELL_Y[type][rotation][n];
+    }
+
+    // Row offset of the lowest filled cell in shape column j
+    public static int bottom(int type, int rotation, int j) {
+        return BOTTOMS[type][rotation][j];
+    }
+}
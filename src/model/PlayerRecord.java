@@ -3,9 +3,16 @@ package src.model;
 public class PlayerRecord {
     public String name;
     public int score;
+    public long seq; // insertion order, assigned by RecordStore; breaks score ties
+    public long gameId; // identifies the game that produced this record, 0 if unknown
 
     public PlayerRecord(String n, int s) {
+        this(n, s, 0);
+    }
+
+    public PlayerRecord(String n, int s, long gameId) {
         this.name = n;
         this.score = s;
+        this.gameId = gameId;
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package src.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Front door for game-over results. Any thread may submit; submissions are
+// deduplicated by game id and queued without locking, and a background
+// thread hands them to the RecordStore in batches.
+public class RecordIngestor {
+
+    public static final int DEFAULT_BATCH = 64;
+    public static final long DEFAULT_FLUSH_MS = 2000;
+
+    private static RecordIngestor defaultIngestor;
+
+    private final RecordStore store;
+    private final int batchSize;
+    private final Set<Long> seen = ConcurrentHashMap.newKeySet(); // submitted, not yet in the store
+    private final ConcurrentLinkedQueue<PlayerRecord> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ScheduledExecutorService flusher;
+
+    public RecordIngestor(RecordStore store, int batchSize, long flushMillis) {
+        this.store = store;
+        this.batchSize = batchSize;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "record-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Ingestor over the default store; flushes whatever is left when the JVM exits
+    public static synchronized RecordIngestor getDefault() {
+        if (defaultIngestor == null) {
+            RecordIngestor ingestor = new RecordIngestor(RecordStore.getDefault(), DEFAULT_BATCH, DEFAULT_FLUSH_MS);
+            Runtime.getRuntime().addShutdownHook(new Thread(ingestor::flush, "record-flush-on-exit"));
+            defaultIngestor = ingestor;
+        }
+        return defaultIngestor;
+    }
+
+    // Returns false if this game was already submitted or stored
+    public boolean submit(PlayerRecord r) {
+        if (r.gameId != 0 && (!seen.add(r.gameId) || store.contains(r.gameId)))
+            return false;
+        pending.add(r);
+        if (pendingCount.incrementAndGet() >= batchSize)
+            flusher.execute(this::flush);
+        return true;
+    }
+
+    // Moves every queued record into the store. Safe to call from any thread,
+    // e.g. before showing the leaderboard so it includes the latest games:
+    // it is synchronized, so a caller also waits for a batch the background
+    // flush has already taken off the queue but not yet stored.
+    public synchronized void flush() {
+        List<PlayerRecord> batch = new ArrayList<>();
+        PlayerRecord r;
+        while ((r = pending.poll()) != null)
+            batch.add(r);
+        if (batch.isEmpty())
+            return;
+        pendingCount.addAndGet(-batch.size());
+        store.addAll(batch);
+        // stored now, so store.contains() catches repeats and seen stays small
+        for (PlayerRecord stored : batch)
+            seen.remove(stored.gameId);
+    }
+}
@@ -0,0 +1,212 @@
+package src.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Persistent leaderboard. Records are appended to a file as they arrive and
+// replayed into two in-memory indexes on open: a Leaderboard ranked by score,
+// and a case-insensitive name index.
+//
+// File layout: int magic, int version, then per record a long game id, a UTF
+// name and an int score. Version 1 files had no game id; they are rewritten
+// as version 2 on open.
+public class RecordStore {
+
+    private static final int MAGIC = 0x54524543; // "TREC"
+    private static final int VERSION = 2;
+
+    public static final Comparator<PlayerRecord> BY_RANK = (a, b) -> a.score != b.score
+            ? Integer.compare(b.score, a.score)
+            : Long.compare(a.seq, b.seq);
+
+    private static RecordStore defaultStore;
+
+    private final File file;
+    private DataOutputStream out;
+    private final Leaderboard byScore = new Leaderboard();
+    private final TreeMap<String, TreeSet<PlayerRecord>> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final HashSet<Long> gameIds = new HashSet<>();
+    private long nextSeq = 0;
+    private long validLength = 0;
+    private int loadedVersion = VERSION;
+
+    private RecordStore(File file) {
+        this.file = file;
+    }
+
+    // Store backing the UI, opened on first use so headless runs never touch the disk
+    public static synchronized RecordStore getDefault() {
+        if (defaultStore == null)
+            defaultStore = open(new File(System.getProperty("tetris.records", "tetris_records.dat")));
+        return defaultStore;
+    }
+
+    // Loads an existing file or starts a new one. If the file cannot be used
+    // the store still works, it just keeps records in memory only.
+    public static RecordStore open(File file) {
+        RecordStore store = new RecordStore(file);
+        try {
+            store.load();
+            if (store.loadedVersion != VERSION)
+                store.migrate();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(store.validLength); // drop a partial record left by a crash
+            }
+            boolean fresh = file.length() == 0;
+            store.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+            if (fresh) {
+                store.out.writeInt(MAGIC);
+                store.out.writeInt(VERSION);
+                store.out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Record store " + file + " unavailable, keeping records in memory: " + e.getMessage());
+            store.out = null;
+        }
+        return store;
+    }
+
+    private void load() throws IOException {
+        if (!file.exists() || file.length() == 0)
+            return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("not a record file");
+            loadedVersion = in.readInt();
+            if (loadedVersion < 1 || loadedVersion > VERSION)
+                throw new IOException("unsupported record file version " + loadedVersion);
+            validLength = 8;
+            while (true) {
+                long gameId = 0;
+                String name;
+                int score;
+                try {
+                    if (loadedVersion >= 2)
+                        gameId = in.readLong();
+                    name = in.readUTF();
+                    score = in.readInt();
+                } catch (EOFException e) {
+                    break; // end of file, or a record cut short by a crash
+                }
+                index(new PlayerRecord(name, score, gameId));
+                validLength += (loadedVersion >= 2 ? 8 : 0) + 2 + utfLength(name) + 4;
+            }
+        }
+    }
+
+    // Rewrites an older file in the current layout, replacing it atomically
+    private void migrate() throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream o = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            o.writeInt(MAGIC);
+            o.writeInt(VERSION);
+            for (PlayerRecord r : byScore.page(1, byScore.size()))
+                write(o, r);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        validLength = file.length();
+        loadedVersion = VERSION;
+    }
+
+    private static void write(DataOutputStream o, PlayerRecord r) throws IOException {
+        o.writeLong(r.gameId);
+        o.writeUTF(r.name);
+        o.writeInt(r.score);
+    }
+
+    // Bytes writeUTF uses for s, not counting its 2-byte length prefix
+    private static int utfLength(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            n += c >= 0x0001 && c <= 0x007F ? 1 : c <= 0x07FF ? 2 : 3;
+        }
+        return n;
+    }
+
+    // Game id 0 means unknown (records from version 1 files) and is never deduplicated
+    private boolean index(PlayerRecord r) {
+        if (r.gameId != 0 && !gameIds.add(r.gameId))
+            return false;
+        r.seq = nextSeq++;
+        byScore.add(r);
+        byName.computeIfAbsent(r.name, k -> new TreeSet<>(BY_RANK)).add(r);
+        return true;
+    }
+
+    public void add(PlayerRecord r) {
+        addAll(Collections.singletonList(r));
+    }
+
+    // Indexes and appends a batch with a single flush. Records whose game id
+    // is already stored are skipped, so resubmitting a game is harmless.
+    public synchronized void addAll(List<PlayerRecord> batch) {
+        boolean written = false;
+        for (PlayerRecord r : batch) {
+            if (!index(r) || out == null)
+                continue;
+            try {
+                write(out, r);
+                written = true;
+            } catch (IOException e) {
+                System.err.println("Could not save record for " + r.name + ": " + e.getMessage());
+            }
+        }
+        if (!written)
+            return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Could not save records: " + e.getMessage());
+        }
+    }
+
+    public synchronized boolean contains(long gameId) {
+        return gameIds.contains(gameId);
+    }
+
+    public synchronized int size() {
+        return byScore.size();
+    }
+
+    // Best n records, highest score first
+    public synchronized List<PlayerRecord> top(int n) {
+        return byScore.page(1, n);
+    }
+
+    // count records starting at a 1-based rank
+    public synchronized List<PlayerRecord> page(int fromRank, int count) {
+        return byScore.page(fromRank, count);
+    }
+
+    // All records for a name, ignoring case, best first
+    public synchronized List<PlayerRecord> findByName(String name) {
+        TreeSet<PlayerRecord> found = byName.get(name);
+        if (found == null)
+            return Collections.emptyList();
+        return new ArrayList<>(found);
+    }
+
+    // 1-based position of a record in the leaderboard
+    public synchronized int rankOf(PlayerRecord r) {
+        return byScore.rankOf(r);
+    }
+}
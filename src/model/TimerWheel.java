@@ -0,0 +1,108 @@
+package src.model;
+
+import java.util.Arrays;
+
+// Hashed timer wheel on the game's simulation clock (milliseconds of gravity
+// time, advanced by the presenter on every tick). Each timer is a fixed id
+// with at most one pending deadline; timers hash into SLOTS buckets of
+// RESOLUTION ms, kept as index-linked lists in plain arrays, so scheduling,
+// cancelling and copying never allocate. Advancing visits only the buckets
+// the elapsed time covers and fires the timers that are due.
+public final class TimerWheel {
+
+    public static final int SLOTS = 128;
+    public static final int RESOLUTION = 250; // ms per slot
+
+    private static final int MASK = SLOTS - 1;
+    private static final int NIL = -1;
+    private static final long IDLE = Long.MAX_VALUE;
+
+    public interface Listener {
+        void onTimer(int id);
+    }
+
+    private final int[] heads = new int[SLOTS];
+    private final int[] next, prev;
+    private final long[] deadlines;
+    private long now = 0;
+
+    public TimerWheel(int timers) {
+        next = new int[timers];
+        prev = new int[timers];
+        deadlines = new long[timers];
+        clear();
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public boolean isScheduled(int id) {
+        return deadlines[id] != IDLE;
+    }
+
+    // Milliseconds until the timer fires, 0 if it is not scheduled
+    public long remaining(int id) {
+        return deadlines[id] == IDLE ? 0 : Math.max(0, deadlines[id] - now);
+    }
+
+    // (Re)starts the timer to fire delay ms from now
+    public void schedule(int id, long delay) {
+        cancel(id);
+        long at = now + Math.max(0, delay);
+        deadlines[id] = at;
+        int slot = (int) (at / RESOLUTION) & MASK;
+        next[id] = heads[slot];
+        prev[id] = NIL;
+        if (heads[slot] != NIL)
+            prev[heads[slot]] = id;
+        heads[slot] = id;
+    }
+
+    public void cancel(int id) {
+        if (deadlines[id] == IDLE)
+            return;
+        if (prev[id] != NIL)
+            next[prev[id]] = next[id];
+        else
+            heads[(int) (deadlines[id] / RESOLUTION) & MASK] = next[id];
+        if (next[id] != NIL)
+            prev[next[id]] = prev[id];
+        deadlines[id] = IDLE;
+    }
+
+    // Moves the clock forward and fires every timer due by the new time.
+    // Listeners see the new time and may reschedule.
+    public void advance(long ms, Listener listener) {
+        long from = now / RESOLUTION;
+        now += ms;
+        long buckets = Math.min(now / RESOLUTION - from, SLOTS - 1);
+        for (long b = from; b <= from + buckets; b++) {
+            int slot = (int) b & MASK;
+            int id = heads[slot];
+            while (id != NIL) {
+                int following = next[id];
+                if (deadlines[id] <= now) {
+                    cancel(id);
+                    listener.onTimer(id);
+                    if (following != NIL && deadlines[following] == IDLE)
+                        following = heads[slot]; // the listener cancelled it, rescan
+                }
+                id = following;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(heads, NIL);
+        Arrays.fill(deadlines, IDLE);
+    }
+
+    public void copyFrom(TimerWheel other) {
+        System.arraycopy(other.heads, 0, heads, 0, SLOTS);
+        System.arraycopy(other.next, 0, next, 0, next.length);
+        System.arraycopy(other.prev, 0, prev, 0, prev.length);
+        System.arraycopy(other.deadlines, 0, deadlines, 0, deadlines.length);
+        now = other.now;
+    }
+}
@@ -0,0 +1,187 @@
+package src.presentation;
+
+import src.model.BitBoard;
+import src.model.GameBoard;
+import src.model.PieceRotations;
+
+import java.util.stream.IntStream;
+
+// Bot that plays through the presenter's public controls. When a new piece
+// spawns it tries every reachable (rotation, column) drop, scores the board
+// each one leaves with a weighted heuristic plus the best follow-up for the
+// next piece in the preview, then steers the piece there. Candidates are scored in
+// parallel, so a decision fits inside one gravity tick even at top speed.
+public class AutoPlayer implements HeadlessEngine.Controller {
+
+    // Heuristic weights, applied to the board left after a drop
+    public static class Weights {
+        public double height = -0.510066;
+        public double lines = 0.760666;
+        public double holes = -0.35663;
+        public double bumpiness = -0.184483;
+    }
+
+    private static final int W = GameBoard.BOARD_WIDTH;
+    private static final int TYPES = GameBoard.SHAPE_COUNT;
+
+    private final Weights weights;
+    private boolean lookahead = true;
+    private int actionsPerStep = Integer.MAX_VALUE;
+
+    private long plannedFor = -1;
+    private int targetRotation, targetX;
+
+    public AutoPlayer() {
+        this(new Weights());
+    }
+
+    public AutoPlayer(Weights weights) {
+        this.weights = weights;
+    }
+
+    public AutoPlayer setLookahead(boolean lookahead) {
+        this.lookahead = lookahead;
+        return this;
+    }
+
+    // Limits how many moves are made per call, e.g. so attract mode looks human
+    public AutoPlayer setActionsPerStep(int actionsPerStep) {
+        this.actionsPerStep = actionsPerStep;
+        return this;
+    }
+
+    @Override
+    public void onStep(GamePresenter p, long time) {
+        if (p.getPieceCount() != plannedFor) {
+            plannedFor = p.getPieceCount();
+            plan(p);
+        }
+        for (int i = 0; i < actionsPerStep; i++) {
+            int x = p.getCurX(), y = p.getCurY(), rot = p.getCurrentRotation();
+            if (rot != targetRotation) {
+                p.rotatePiece();
+                if (p.getCurrentRotation() == rot)
+                    targetRotation = rot; // blocked, settle for what we have
+            } else if (x < targetX) {
+                p.moveRight();
+                if (p.getCurX() == x)
+                    targetX = x;
+            } else if (x > targetX) {
+                p.moveLeft();
+                if (p.getCurX() == x)
+                    targetX = x;
+            } else {
+                p.hardDrop();
+                return;
+            }
+        }
+    }
+
+    private void plan(GamePresenter p) {
+        BitBoard board = p.getModel().board.copy(); // candidates copy this, never the live board
+        int type = p.getCurrentPieceType();
+        int startRot = p.getCurrentRotation();
+        int startX = p.getCurX();
+        int startY = p.getCurY();
+        int next = p.getPreview().peek(0);
+
+        // candidate index = rotation * (W + 4) + (x + 4)
+        int span = W + 4;
+        double[] scores = IntStream.range(0, PieceRotations.COUNT * span).parallel().mapToDouble(c -> {
+            int rot = c / span, x = c % span - 4;
+            if (!reachable(p, type, startRot, rot, startX, startY, x))
+                return Double.NEGATIVE_INFINITY;
+            BitBoard after = board.copy();
+            int lines = drop(after, type, rot, x, startY);
+            if (lines < 0)
+                return Double.NEGATIVE_INFINITY;
+            double score = evaluate(after, lines);
+            if (lookahead)
+                score += bestFollowUp(after, next);
+            return score;
+        }).toArray();
+
+        int best = -1;
+        for (int c = 0; c < scores.length; c++)
+            if (scores[c] != Double.NEGATIVE_INFINITY && (best < 0 || scores[c] > scores[best]))
+                best = c;
+        if (best < 0) {
+            targetRotation = startRot;
+            targetX = startX;
+        } else {
+            targetRotation = best / span;
+            targetX = best % span - 4;
+        }
+    }
+
+    // Best score the next piece could reach; averaged over all pieces when
+    // the preview does not know it yet
+    private double bestFollowUp(BitBoard board, int next) {
+        if (next >= 0)
+            return bestDrop(board, next);
+        double total = 0;
+        for (int type = 0; type < TYPES; type++)
+            total += bestDrop(board, type);
+        return total / TYPES;
+    }
+
+    private double bestDrop(BitBoard board, int type) {
+        double best = Double.NEGATIVE_INFINITY;
+        for (int rot = 0; rot < PieceRotations.COUNT; rot++)
+            for (int x = -3; x < W; x++) {
+                if (collides(board, type, rot, x, 0))
+                    continue;
+                BitBoard after = board.copy();
+                int lines = drop(after, type, rot, x, 0);
+                if (lines >= 0)
+                    best = Math.max(best, evaluate(after, lines));
+            }
+        return best == Double.NEGATIVE_INFINITY ? -1000 : best;
+    }
+
+    // Rotating in place first, then sliding sideways at the current row,
+    // checked against the live board with the presenter's own canMove
+    private static boolean reachable(GamePresenter p, int type, int fromRot, int rot, int fromX, int y, int x) {
+        for (int r = fromRot; r != rot; r = PieceRotations.next(r))
+            if (!p.canMove(type, PieceRotations.next(r), fromX, y))
+                return false;
+        if (!p.canMove(type, rot, fromX, y))
+            return false;
+        int dir = Integer.signum(x - fromX);
+        for (int cx = fromX; cx != x; cx += dir)
+            if (!p.canMove(type, rot, cx + dir, y))
+                return false;
+        return true;
+    }
+
+    // Same rules as canMove, on a candidate board
+    private static boolean collides(BitBoard board, int type, int rot, int nx, int ny) {
+        for (int i = 0, h = PieceRotations.height(type, rot); i < h; i++)
+            if (board.collides(PieceRotations.rowMask(type, rot, i), nx, ny + i))
+                return true;
+        return false;
+    }
+
+    // Drops the piece, locks it and clears lines; returns lines cleared or -1 if it doesn't fit
+    private static int drop(BitBoard board, int type, int rot, int x, int y) {
+        if (collides(board, type, rot, x, y))
+            return -1;
+        y += board.dropDistance(type, rot, x, y);
+        for (int n = 0, cells = PieceRotations.cells(type, rot); n < cells; n++) {
+            int cy = y + PieceRotations.cellY(type, rot, n);
+            if (cy < 0)
+                return -1;
+            board.set(x + PieceRotations.cellX(type, rot, n), cy, type + 1);
+        }
+        int full = board.fullRows();
+        board.clearRows(full);
+        return Integer.bitCount(full);
+    }
+
+    // The board keeps its height and hole totals current, so this is a
+    // handful of reads plus one pass for bumpiness
+    private double evaluate(BitBoard board, int lines) {
+        return weights.height * board.aggregateHeight() + weights.lines * lines + weights.holes * board.holes()
+                + weights.bumpiness * board.bumpiness();
+    }
+}
@@ -0,0 +1,128 @@
+package src.presentation;
+
+import src.model.GameBoard;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Plays many independent headless games in parallel on a fork-join pool.
+// Every game gets its own board, presenter and seeded RNG, so nothing is
+// shared between workers except the summary they are merged into.
+public class BatchRunner {
+
+    public static class Summary {
+        public int games = 0;
+        public long totalScore = 0;
+        public int minScore = Integer.MAX_VALUE;
+        public int maxScore = 0;
+        public long totalTicks = 0;
+        public long perksGranted = 0;
+        public long perksUsed = 0;
+        public int[] levels = new int[16]; // games finished at each level, grown for higher ones
+
+        void add(HeadlessEngine engine) {
+            GameBoard model = engine.getModel();
+            games++;
+            totalScore += model.score;
+            minScore = Math.min(minScore, model.score);
+            maxScore = Math.max(maxScore, model.score);
+            totalTicks += engine.getClock().getTicks();
+            perksGranted += model.perksGranted;
+            perksUsed += model.perksUsed;
+            if (model.level >= levels.length)
+                levels = Arrays.copyOf(levels, model.level + 1);
+            levels[model.level]++;
+        }
+
+        void merge(Summary other) {
+            games += other.games;
+            totalScore += other.totalScore;
+            minScore = Math.min(minScore, other.minScore);
+            maxScore = Math.max(maxScore, other.maxScore);
+            totalTicks += other.totalTicks;
+            perksGranted += other.perksGranted;
+            perksUsed += other.perksUsed;
+            if (other.levels.length > levels.length)
+                levels = Arrays.copyOf(levels, other.levels.length);
+            for (int i = 0; i < other.levels.length; i++)
+                levels[i] += other.levels[i];
+        }
+
+        public double averageScore() {
+            return games == 0 ? 0 : (double) totalScore / games;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Games: %d%n", games));
+            sb.append(String.format("Score: avg %.1f  min %d  max %d%n", averageScore(),
+                    games == 0 ? 0 : minScore, maxScore));
+            sb.append(String.format("Ticks: %d%n", totalTicks));
+            sb.append(String.format("Perks: granted %d  used %d%n", perksGranted, perksUsed));
+            for (int i = 1; i < levels.length; i++)
+                if (levels[i] > 0)
+                    sb.append(String.format("Level %d: %d%n", i, levels[i]));
+            return sb.toString();
+        }
+    }
+
+    private final int threads;
+    private Supplier<HeadlessEngine.Controller> controllers = () -> null;
+    private long maxTicks = Long.MAX_VALUE;
+
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRunner(int threads) {
+        this.threads = threads;
+    }
+
+    // Each game asks the supplier for its own controller, so stateful bots are never shared
+    public BatchRunner setControllers(Supplier<HeadlessEngine.Controller> controllers) {
+        this.controllers = controllers;
+        return this;
+    }
+
+    public BatchRunner setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+        return this;
+    }
+
+    // Same baseSeed and game count always produce the same summary
+    public Summary run(int games, long baseSeed) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> IntStream.range(0, games).parallel()
+                    .mapToObj(i -> play(gameSeed(baseSeed, i)))
+                    .collect(Summary::new, Summary::add, Summary::merge)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch game failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private HeadlessEngine play(long seed) {
+        HeadlessEngine engine = new HeadlessEngine("Batch", seed)
+                .setController(controllers.get())
+                .setMaxTicks(maxTicks);
+        engine.run();
+        return engine;
+    }
+
+    // SplitMix64 finalizer so neighbouring game indexes get unrelated seeds
+    public static long gameSeed(long baseSeed, int index) {
+        long z = baseSeed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,60 @@
+package src.presentation;
+
+// Simulated replacement for the Swing gravity timer in TetrisGame. Time only
+// moves when advance() is called, so the same clock can run in real time or
+// flat out. Perk and cooldown timers live in the game's own TimerWheel.
+public class FixedStepClock implements GamePresenter.TimerCallback {
+
+    public static final int DEFAULT_DELAY = 600;
+
+    private int delay = DEFAULT_DELAY;
+    private long now = 0;
+    private long lastTick = 0;
+    private long ticks = 0;
+    private boolean stopped = false;
+
+    @Override
+    public void setDelay(int delay) {
+        this.delay = delay;
+    }
+
+    public int getDelay() {
+        return delay;
+    }
+
+    public long getTime() {
+        return now;
+    }
+
+    // Fraction of the current gravity interval already elapsed, 0 to 1.
+    // Renderers use it to draw the falling piece between ticks.
+    public float getTickProgress() {
+        return Math.min(1f, (float) (now - lastTick) / delay);
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    // Moves simulated time forward by ms, firing every gravity tick that
+    // falls inside the step.
+    public void advance(GamePresenter presenter, int ms) {
+        long end = now + ms;
+        while (!stopped && lastTick + delay <= end) {
+            now = lastTick + delay;
+            lastTick = now;
+            ticks++;
+            presenter.tick();
+        }
+        if (!stopped)
+            now = end;
+    }
+}
@@ -3,7 +3,18 @@ package src.presentation;
 import java.awt.Toolkit;
 
 public class GameEnhancer {
+    // Headless runs switch this off so no AWT toolkit is ever touched
+    public static volatile boolean soundEnabled = true;
+
+    // Beeps once per batch that grants a perk or a life; the views' fallback
+    // when there is no audio line for the mixer (see AudioEngine)
+    public static final GameEvents.Listener SOUNDS = batch -> {
+        if (batch.contains(GameEvents.PERK_GRANTED) || batch.contains(GameEvents.LIFE_GAINED))
+            playBonusSound();
+    };
+
     public static void playBonusSound() {
-        Toolkit.getDefaultToolkit().beep();
+        if (soundEnabled)
+            Toolkit.getDefaultToolkit().beep();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package src.presentation;
+
+import java.util.Arrays;
+
+// Everything notable that happens in a game, queued by the presenter and
+// handed to listeners in batches: once per gravity tick and once per logic
+// step of whatever drives the game, never in the middle of one. Sound,
+// statistics or effects subscribe here instead of being called from the
+// game rules.
+//
+// Events are stored as parallel primitive arrays, preallocated and reused by
+// every batch, so publishing never allocates. With no listeners publishing
+// does nothing, which is how headless runs pay nothing for events. Not
+// thread safe: the thread that runs the game publishes and flushes.
+public final class GameEvents {
+
+    public static final int PIECE_SPAWNED = 1; // a = piece type
+    public static final int PIECE_LOCKED = 2; // a = piece type, b = row it locked on
+    public static final int LINES_CLEARED = 3; // a = cleared rows (bit y = row y, before compaction), b = count
+    public static final int PERK_GRANTED = 4; // a = Perk ordinal
+    public static final int PERK_USED = 5; // a = Perk ordinal
+    public static final int PERK_EXPIRED = 6; // a = Perk ordinal
+    public static final int LEVEL_UP = 7; // a = new level
+    public static final int LIFE_LOST = 8; // a = lives left
+    public static final int LIFE_GAINED = 9; // a = lives now
+    public static final int GAME_OVER = 10; // a = final score
+
+    // Called with a whole batch; read it with size(), type(i), a(i), b(i)
+    // and time(i). The batch is only valid during the call, and listeners
+    // must not drive the game from it.
+    public interface Listener {
+        void onEvents(GameEvents batch);
+    }
+
+    private static final int CAPACITY = 256; // a batch that fills it is flushed early
+
+    private final int[] types = new int[CAPACITY];
+    private final int[] as = new int[CAPACITY];
+    private final int[] bs = new int[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+    private int size = 0;
+
+    private Listener[] listeners = new Listener[0]; // replaced, never mutated, on (un)subscribe
+
+    public void subscribe(Listener listener) {
+        Listener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    public void unsubscribe(Listener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                Listener[] next = new Listener[listeners.length - 1];
+                System.arraycopy(listeners, 0, next, 0, i);
+                System.arraycopy(listeners, i + 1, next, i, next.length - i);
+                listeners = next;
+                return;
+            }
+        }
+    }
+
+    public boolean hasListeners() {
+        return listeners.length > 0;
+    }
+
+    // time is in ms of game time
+    void publish(int type, int a, int b, long time) {
+        if (listeners.length == 0)
+            return;
+        if (size == CAPACITY)
+            flush();
+        types[size] = type;
+        as[size] = a;
+        bs[size] = b;
+        times[size] = time;
+        size++;
+    }
+
+    // Hands the queued events to every listener and empties the queue
+    public void flush() {
+        if (size == 0)
+            return;
+        for (Listener listener : listeners)
+            listener.onEvents(this);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int type(int i) {
+        return types[i];
+    }
+
+    public int a(int i) {
+        return as[i];
+    }
+
+    public int b(int i) {
+        return bs[i];
+    }
+
+    public long time(int i) {
+        return times[i];
+    }
+
+    // True if the batch holds at least one event of this type
+    public boolean contains(int type) {
+        for (int i = 0; i < size; i++)
+            if (types[i] == type)
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,167 @@
+package src.presentation;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Latency histograms and counters for a running game: how long each tick
+// and each paint takes, how long a key press waits until it is on screen,
+// how much the game thread allocates per frame, and game counters fed from
+// the presenter's events. Shown over JMX as src.presentation:type=GameMetrics
+// and in the sidebar debug overlay (F3).
+//
+// The Swing views create it; -Dtetris.metrics=false turns it off. Headless
+// runs never create it, so they pay nothing.
+public final class GameMetrics implements GameMetricsMBean, GameEvents.Listener {
+
+    public final LatencyHistogram tick = new LatencyHistogram(); // ns
+    public final LatencyHistogram paint = new LatencyHistogram(); // ns
+    public final LatencyHistogram inputToRender = new LatencyHistogram(); // ns, ms resolution
+    public final LatencyHistogram allocPerFrame = new LatencyHistogram(); // bytes
+
+    private volatile long frames, piecesLocked, linesCleared, perksGranted, perksUsed;
+
+    private static GameMetrics defaultMetrics;
+    private static boolean initialized = false;
+
+    private final com.sun.management.ThreadMXBean allocations;
+    private long lastAllocated = -1;
+
+    private GameMetrics() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        allocations = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                        ? (com.sun.management.ThreadMXBean) threads
+                        : null;
+    }
+
+    // The shared instance, registered with JMX on first use; null if turned off
+    public static synchronized GameMetrics getDefault() {
+        if (!initialized) {
+            initialized = true;
+            if (Boolean.parseBoolean(System.getProperty("tetris.metrics", "true"))) {
+                defaultMetrics = new GameMetrics();
+                try {
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(defaultMetrics,
+                            new ObjectName("src.presentation:type=GameMetrics"));
+                } catch (JMException e) {
+                    System.err.println("Metrics not available over JMX: " + e.getMessage());
+                }
+            }
+        }
+        return defaultMetrics;
+    }
+
+    // Call once per frame, from the thread that runs and paints the game
+    public void frame(long paintNanos) {
+        paint.record(paintNanos);
+        if (allocations != null) {
+            long allocated = allocations.getCurrentThreadAllocatedBytes();
+            if (lastAllocated >= 0)
+                allocPerFrame.record(allocated - lastAllocated);
+            lastAllocated = allocated;
+        }
+        frames++;
+    }
+
+    // A frame showing the effect of input first applied at inputTime (ms on
+    // the input clock, see InputQueue) has just been painted at now
+    public void inputRendered(long inputTime, long now) {
+        inputToRender.record((now - inputTime) * 1_000_000L);
+    }
+
+    @Override
+    public void onEvents(GameEvents batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            switch (batch.type(i)) {
+                case GameEvents.PIECE_LOCKED:
+                    piecesLocked++;
+                    break;
+                case GameEvents.LINES_CLEARED:
+                    linesCleared += batch.b(i);
+                    break;
+                case GameEvents.PERK_GRANTED:
+                    perksGranted++;
+                    break;
+                case GameEvents.PERK_USED:
+                    perksUsed++;
+                    break;
+                default:
+            }
+        }
+    }
+
+    public long getTicks() {
+        return tick.count();
+    }
+
+    public long getTickP50Micros() {
+        return tick.percentile(0.5) / 1000;
+    }
+
+    public long getTickP99Micros() {
+        return tick.percentile(0.99) / 1000;
+    }
+
+    public long getTickMaxMicros() {
+        return tick.max() / 1000;
+    }
+
+    public long getPaintP50Micros() {
+        return paint.percentile(0.5) / 1000;
+    }
+
+    public long getPaintP99Micros() {
+        return paint.percentile(0.99) / 1000;
+    }
+
+    public long getPaintMaxMicros() {
+        return paint.max() / 1000;
+    }
+
+    public long getInputToRenderP50Micros() {
+        return inputToRender.percentile(0.5) / 1000;
+    }
+
+    public long getInputToRenderP99Micros() {
+        return inputToRender.percentile(0.99) / 1000;
+    }
+
+    public long getAllocatedBytesPerFrameP50() {
+        return allocPerFrame.percentile(0.5);
+    }
+
+    public long getAllocatedBytesPerFrameP99() {
+        return allocPerFrame.percentile(0.99);
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getPiecesLocked() {
+        return piecesLocked;
+    }
+
+    public long getLinesCleared() {
+        return linesCleared;
+    }
+
+    public long getPerksGranted() {
+        return perksGranted;
+    }
+
+    public long getPerksUsed() {
+        return perksUsed;
+    }
+
+    // Clears everything; meant for an operator between runs, not during a record
+    public void reset() {
+        tick.reset();
+        paint.reset();
+        inputToRender.reset();
+        allocPerFrame.reset();
+        frames = piecesLocked = linesCleared = perksGranted = perksUsed = 0;
+    }
+}
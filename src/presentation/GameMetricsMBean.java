@@ -0,0 +1,39 @@
+package src.presentation;
+
+// What GameMetrics shows over JMX (jconsole, jcmd and the like). Times are
+// in microseconds.
+public interface GameMetricsMBean {
+    long getTicks();
+
+    long getTickP50Micros();
+
+    long getTickP99Micros();
+
+    long getTickMaxMicros();
+
+    long getPaintP50Micros();
+
+    long getPaintP99Micros();
+
+    long getPaintMaxMicros();
+
+    long getInputToRenderP50Micros();
+
+    long getInputToRenderP99Micros();
+
+    long getAllocatedBytesPerFrameP50();
+
+    long getAllocatedBytesPerFrameP99();
+
+    long getFrames();
+
+    long getPiecesLocked();
+
+    long getLinesCleared();
+
+    long getPerksGranted();
+
+    long getPerksUsed();
+
+    void reset();
+}
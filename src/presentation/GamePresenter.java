@@ -1,19 +1,33 @@
 package src.presentation;
 
+import src.model.BitBoard;
 import src.model.GameBoard;
+import src.model.GameSnapshot;
+import src.model.Perk;
+import src.model.PieceRotations;
 import src.model.PlayerRecord;
+import src.model.TimerWheel;
 
-import java.util.Random;
-
-import javax.management.timer.Timer;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class GamePresenter {
 
+    private static final int I_PIECE = 0; // the piece Lucky guarantees
+
+    // Points for clearing 0..4 rows with one piece (single, double, triple, tetris)
+    private static final int[] LINE_SCORES = { 0, 100, 300, 500, 800 };
+
     private GameBoard model;
     private int curX = 0, curY = 0;
-    private int[][] currentPiece;
     private int currentPieceType = 0;
-    private Random rand = new Random();
+    private int currentRotation = 0;
+    private final SplitMix rand; // perk rolls; pieces come from the preview queue's generator
+    private final long seed;
+    private final PreviewQueue preview;
+    private ReplayRecorder recorder;
+    private final GameEvents events = new GameEvents();
+    private GameMetrics metrics; // null unless a view measures this game
+    private long pieceCount = 0; // bumped whenever a different piece starts falling
 
     private GameView view;
     private String playerName;
@@ -25,12 +39,121 @@ public class GamePresenter {
     }
 
     private TimerCallback timerCallback;
+    private final TimerWheel.Listener onTimer = this::onTimer;
+    private int delay; // current gravity interval; each tick advances game time by it
+    private final leveStages stages = leveStages.getDefault();
+    private int nextThreshold; // lowest score at which updateLogic has anything to do
+
+    // Lock delay: a resting piece locks once LOCK_TIMER has run out. Moving
+    // or rotating it restarts the timer, at most MAX_LOCK_RESETS times.
+    public static final int MAX_LOCK_RESETS = 15;
+    private boolean lockDue = false;
+    private int lockResets = 0;
+
+    // Landing row of the current piece. It cannot change while the piece
+    // only falls, so it is recomputed when the piece, its column or rotation,
+    // or the board changes.
+    private int ghostY;
+    private long ghostPiece = -1;
+    private int ghostX, ghostRotation, ghostVersion;
+
+    // What perk effects are allowed to touch
+    private final Perk.Host perkHost = new Perk.Host() {
+        public void setDelay(int delay) {
+            GamePresenter.this.setDelay(delay);
+        }
 
+        public void eraseLine() {
+            GamePresenter.this.eraseLine();
+        }
+
+        public int levelDelay() {
+            return stages.delay(model.level);
+        }
+    };
+
+    // Unseeded games still pick a seed up front so any game can be recorded and replayed
     public GamePresenter(GameBoard model, String playerName, GameView view, TimerCallback timerCallback) {
+        this(model, playerName, view, timerCallback, ThreadLocalRandom.current().nextLong());
+    }
+
+    // Seeded games draw every piece and perk from their own RNG, so they are
+    // reproducible and can run side by side with other games in the same JVM.
+    public GamePresenter(GameBoard model, String playerName, GameView view, TimerCallback timerCallback, long seed) {
+        this(model, playerName, view, timerCallback, seed, PieceGenerator.getDefault(seed),
+                Integer.getInteger("tetris.preview", PreviewQueue.DEFAULT_DEPTH));
+    }
+
+    public GamePresenter(GameBoard model, String playerName, GameView view, TimerCallback timerCallback, long seed,
+            PieceGenerator generator, int previewDepth) {
         this.model = model;
         this.playerName = playerName;
         this.view = view;
         this.timerCallback = timerCallback;
+        this.seed = seed;
+        this.rand = new SplitMix(seed);
+        this.preview = new PreviewQueue(generator, previewDepth);
+        setDelay(stages.delay(model.level));
+        updateNextThreshold();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Subscribe here for sound, statistics and effects
+    public GameEvents getEvents() {
+        return events;
+    }
+
+    // Hands queued events to listeners. tick() does this itself; whatever
+    // drives the game also calls it once per step so events caused by input
+    // between ticks are not held back.
+    public void flushEvents() {
+        events.flush();
+    }
+
+    // Times every tick into metrics and counts its events
+    public void setMetrics(GameMetrics metrics) {
+        if (this.metrics != null)
+            events.unsubscribe(this.metrics);
+        this.metrics = metrics;
+        if (metrics != null)
+            events.subscribe(metrics);
+    }
+
+    public PreviewQueue getPreview() {
+        return preview;
+    }
+
+    // Starts recording inputs for a replay. Must be called before the first newPiece().
+    public ReplayRecorder startRecording() {
+        recorder = new ReplayRecorder(seed, model.gameId, playerName, stages.fingerprint(), preview.generator(),
+                preview.depth());
+        return recorder;
+    }
+
+    // Changes gravity speed both for the game clock and for whoever drives tick()
+    private void setDelay(int delay) {
+        this.delay = delay;
+        timerCallback.setDelay(delay);
+    }
+
+    public int getDelay() {
+        return delay;
+    }
+
+    // Milliseconds of game time played so far
+    public long getTime() {
+        return model.timers.now();
+    }
+
+    public GameBoard getModel() {
+        return model;
+    }
+
+    public long getPieceCount() {
+        return pieceCount;
     }
 
     public int getCurX() {
@@ -41,37 +164,83 @@ public class GamePresenter {
         return curY;
     }
 
+    // A copy of the falling piece's cells, null before the first piece
     public int[][] getCurrentPiece() {
-        return currentPiece;
+        return pieceCount > 0 ? PieceRotations.shape(currentPieceType, currentRotation) : null;
     }
 
     public int getCurrentPieceType() {
         return currentPieceType;
     }
 
+    public int getCurrentRotation() {
+        return currentRotation;
+    }
+
+    // Puts a piece of the given type at (x, y) in its spawn orientation, without collision checks
+    public void setPiece(int type, int x, int y) {
+        setPiece(type, 0, x, y);
+    }
+
+    public void setPiece(int type, int rotation, int x, int y) {
+        currentPieceType = type;
+        currentRotation = rotation;
+        curX = x;
+        curY = y;
+        pieceCount++;
+    }
+
+    // Captures the whole game, including the state of the perk RNG and the
+    // piece generator with its queued and pending pieces, so a copy restored
+    // from it draws the same pieces and perks as the live game. Reads only:
+    // when or how often a game is saved never changes how it plays.
+    public GameSnapshot snapshot() {
+        PieceGenerator generator = preview.generator();
+        return new GameSnapshot(model, playerName, rand.state, generator.state(), preview.toArray(),
+                generator.pending(), currentPieceType, currentRotation, curX, curY, delay, lockDue, lockResets);
+    }
+
+    public void restore(GameSnapshot snapshot) {
+        snapshot.applyTo(model);
+        rand.state = snapshot.rngState;
+        preview.restore(snapshot.preview(), snapshot.pieceState, snapshot.pending());
+        setPiece(snapshot.pieceType, snapshot.pieceRotation, snapshot.pieceX, snapshot.pieceY);
+        setDelay(snapshot.delay);
+        lockDue = snapshot.lockDue;
+        lockResets = snapshot.lockResets;
+        updateNextThreshold();
+    }
+
     public void newPiece() {
-        if (model.lucky) {
-            currentPiece = model.SHAPES[0];
-            currentPieceType = 0;
-            model.lucky = false;
+        if (model.consume(Perk.LUCKY)) {
+            // the nearest queued I piece jumps the queue, so a bag keeps its
+            // count; only if none is queued is an extra one added
+            currentPieceType = I_PIECE;
+            preview.remove(I_PIECE);
         } else {
-            currentPieceType = rand.nextInt(model.SHAPES.length);
-            currentPiece = model.SHAPES[currentPieceType];
+            currentPieceType = preview.take();
         }
+        currentRotation = 0;
 
         curX = GameBoard.BOARD_WIDTH / 2 - 1;
         curY = 0;
+        pieceCount++;
+        emit(GameEvents.PIECE_SPAWNED, currentPieceType, 0);
 
-        if (!canMove(currentPiece, curX, curY)) {
-            if (model.shield) {
-                model.shield = false;
+        if (!canMove(currentPieceType, currentRotation, curX, curY)) {
+            if (model.consume(Perk.SHIELD)) {
                 eraseLine();
                 return;
             }
 
             model.lives--;
+            emit(GameEvents.LIFE_LOST, model.lives, 0);
 
             if (model.lives <= 0) {
+                if (recorder != null)
+                    recorder.end(model.score);
+                emit(GameEvents.GAME_OVER, model.score, 0);
+                events.flush(); // no tick follows to deliver it
                 view.onGameOver(playerName, model.score);
             } else {
                 model.resetBoard();
@@ -81,108 +250,103 @@ public class GamePresenter {
     }
 
     public void rotatePiece() {
-        int r = currentPiece.length;
-        int c = currentPiece[0].length;
-        int[][] rotated = new int[c][r];
-        for (int i = 0; i < r; i++)
-            for (int j = 0; j < c; j++)
-                rotated[j][r - 1 - i] = currentPiece[i][j];
-        if (canMove(rotated, curX, curY))
-            currentPiece = rotated;
+        if (recorder != null)
+            recorder.event(ReplayRecorder.ROTATE);
+        int next = PieceRotations.next(currentRotation);
+        if (canMove(currentPieceType, next, curX, curY)) {
+            currentRotation = next;
+            restartLockDelay();
+        }
     }
 
     public boolean canMove(int[][] piece, int nx, int ny) {
-        for (int i = 0; i < piece.length; i++) {
-            for (int j = 0; j < piece[0].length; j++) {
-                if (piece[i][j] != 0) {
-                    int x = nx + j, y = ny + i;
-                    if (x < 0 || x >= GameBoard.BOARD_WIDTH || y >= GameBoard.BOARD_HEIGHT)
-                        return false;
-                    if (y >= 0 && model.board[y][x] != 0)
-                        return false;
-                }
-            }
-        }
+        for (int i = 0; i < piece.length; i++)
+            if (model.board.collides(BitBoard.rowMask(piece[i]), nx, ny + i))
+                return false;
+        return true;
+    }
+
+    // Same check as above using the precomputed row masks, no per-cell work
+    public boolean canMove(int type, int rotation, int nx, int ny) {
+        for (int i = 0, h = PieceRotations.height(type, rotation); i < h; i++)
+            if (model.board.collides(PieceRotations.rowMask(type, rotation, i), nx, ny + i))
+                return false;
         return true;
     }
 
     public void moveLeft() {
-        if (canMove(currentPiece, curX - 1, curY))
+        if (recorder != null)
+            recorder.event(ReplayRecorder.LEFT);
+        if (canMove(currentPieceType, currentRotation, curX - 1, curY)) {
             curX--;
+            restartLockDelay();
+        }
     }
 
     public void moveRight() {
-        if (canMove(currentPiece, curX + 1, curY))
+        if (recorder != null)
+            recorder.event(ReplayRecorder.RIGHT);
+        if (canMove(currentPieceType, currentRotation, curX + 1, curY)) {
             curX++;
+            restartLockDelay();
+        }
     }
 
     public void moveDown() {
-        if (canMove(currentPiece, curX, curY + 1))
+        if (recorder != null)
+            recorder.event(ReplayRecorder.DOWN);
+        if (canMove(currentPieceType, currentRotation, curX, curY + 1)) {
             curY++;
+            model.timers.cancel(GameBoard.LOCK_TIMER);
+        }
     }
 
-    public void usePerk(int i) {
-        if (i >= model.perks.size())
-            return;
-        if (model.perkCooldown > 0)
-            return; // cooldown active, block usage
-
-        String p = model.perks.remove(i);
-        model.perkCooldown = model.PERK_COOLDOWN_MAX; // start cooldown
-
-        if (p.equals("Slow Time")) {
-            model.slowTime = true;
-            model.slowTimer = 300;
-            model.slowTimeSeconds = GameBoard.PERK_DURATION;
-            timerCallback.setDelay(1000);
-        }
+    // Drops the piece straight to its landing row and locks it at once
+    public void hardDrop() {
+        if (recorder != null)
+            recorder.event(ReplayRecorder.HARD_DROP);
+        curY = getGhostY();
+        lockPiece();
+        updateLogic();
+    }
 
-        if (p.equals("Bomb")) {
-            model.bomb = true;
-            model.bombSeconds = GameBoard.PERK_DURATION;
+    private void restartLockDelay() {
+        if (model.timers.isScheduled(GameBoard.LOCK_TIMER) && lockResets < MAX_LOCK_RESETS) {
+            model.timers.schedule(GameBoard.LOCK_TIMER, stages.lockDelay);
+            lockResets++;
         }
+    }
 
-        if (p.equals("Line Erase"))
-            eraseLine();
-
-        if (p.equals("Double Score")) {
-            model.doubleScore = true;
-            model.doubleTimer = 300;
-            model.doubleScoreSeconds = GameBoard.PERK_DURATION;
-        }
+    public void usePerk(int i) {
+        if (recorder != null)
+            recorder.perk(i);
+        if (i >= model.perkCount)
+            return;
+        if (model.isCoolingDown())
+            return; // cooldown active, block usage
 
-        if (p.equals("Shield")) {
-            model.shield = true;
-            model.shieldSeconds = GameBoard.PERK_DURATION;
-        }
+        Perk perk = model.takePerk(i);
+        model.timers.schedule(GameBoard.COOLDOWN_TIMER, GameBoard.PERK_COOLDOWN_TICKS * delay);
+        model.perksUsed++;
 
-        if (p.equals("Lucky")) {
-            model.lucky = true;
-            model.luckySeconds = GameBoard.PERK_DURATION;
-        }
+        if (perk.isTimed())
+            model.activate(perk);
+        perk.apply(perkHost);
+        emit(GameEvents.PERK_USED, perk.ordinal(), 0);
     }
 
     private void givePerk() {
-        if (model.perks.size() >= model.MAX_PERKS)
+        if (model.perkCount >= GameBoard.MAX_PERKS)
             return;
 
-        String[] list = {
-                "Slow Time",
-                "Bomb",
-                "Line Erase",
-                "Double Score",
-                "Shield",
-                "Lucky"
-        };
-
-        model.perks.add(list[rand.nextInt(list.length)]);
-        GameEnhancer.playBonusSound();
+        Perk perk = Perk.of(rand.nextInt(Perk.COUNT));
+        model.addPerk(perk);
+        model.perksGranted++;
+        emit(GameEvents.PERK_GRANTED, perk.ordinal(), 0);
     }
 
     private void eraseLine() {
-        for (int i = GameBoard.BOARD_HEIGHT - 1; i > 0; i--)
-            model.board[i] = model.board[i - 1].clone();
-        model.board[0] = new int[GameBoard.BOARD_WIDTH];
+        model.board.clearRow(GameBoard.BOARD_HEIGHT - 1);
     }
 
     private void explode(int x, int y) {
@@ -190,155 +354,128 @@ public class GamePresenter {
             for (int j = -1; j <= 1; j++) {
                 int nx = x + j, ny = y + i;
                 if (nx >= 0 && nx < GameBoard.BOARD_WIDTH && ny >= 0 && ny < GameBoard.BOARD_HEIGHT)
-                    model.board[ny][nx] = 0;
+                    model.board.clear(nx, ny);
             }
     }
 
     public void tick() {
-        if (canMove(currentPiece, curX, curY + 1)) {
+        long start = metrics != null ? System.nanoTime() : 0;
+        if (recorder != null)
+            recorder.tick();
+        model.timers.advance(delay, onTimer); // the interval that just elapsed
+        if (canMove(currentPieceType, currentRotation, curX, curY + 1)) {
             curY++;
+            model.timers.cancel(GameBoard.LOCK_TIMER);
+            lockDue = false;
+        } else if (stages.lockDelay > 0 && !lockDue) {
+            if (!model.timers.isScheduled(GameBoard.LOCK_TIMER))
+                model.timers.schedule(GameBoard.LOCK_TIMER, stages.lockDelay);
         } else {
-            placePiece();
-            checkLines();
-            newPiece();
+            lockPiece();
         }
         updateLogic();
+        events.flush();
+        if (metrics != null)
+            metrics.tick.record(System.nanoTime() - start);
     }
 
-    private void placePiece() {
-        for (int i = 0; i < currentPiece.length; i++)
-            for (int j = 0; j < currentPiece[0].length; j++)
-                if (currentPiece[i][j] != 0) {
-                    if (model.bomb)
-                        explode(curX + j, curY + i);
-                    else
-                        model.board[curY + i][curX + j] = currentPieceType + 1;
-                }
-        model.bomb = false;
+    private void lockPiece() {
+        model.timers.cancel(GameBoard.LOCK_TIMER);
+        lockDue = false;
+        lockResets = 0;
+        placePiece();
+        emit(GameEvents.PIECE_LOCKED, currentPieceType, curY);
+        checkLines();
+        newPiece();
     }
 
-    private void checkLines() {
-        for (int i = GameBoard.BOARD_HEIGHT - 1; i >= 0; i--) {
-            boolean full = true;
-            for (int j = 0; j < GameBoard.BOARD_WIDTH; j++)
-                if (model.board[i][j] == 0) {
-                    full = false;
-                    break;
-                }
-
-            if (full) {
-                model.score += model.doubleScore ? 200 : 100;
-
-                if (rand.nextInt(100) < 30)
-                    givePerk();
-
-                for (int k = i; k > 0; k--)
-                    model.board[k] = model.board[k - 1].clone();
-                model.board[0] = new int[GameBoard.BOARD_WIDTH];
-                i++;
-            }
+    private void placePiece() {
+        boolean bomb = model.consume(Perk.BOMB);
+        for (int n = 0, cells = PieceRotations.cells(currentPieceType, currentRotation); n < cells; n++) {
+            int x = curX + PieceRotations.cellX(currentPieceType, currentRotation, n);
+            int y = curY + PieceRotations.cellY(currentPieceType, currentRotation, n);
+            if (bomb)
+                explode(x, y);
+            else
+                model.board.set(x, y, currentPieceType + 1);
         }
     }
 
-    private void updateLogic() {
-        if (model.score >= 1000 && model.level == 1) {
-            model.level = 2;
-            timerCallback.setDelay(350);
-        }
+    // Clears every full row in one pass and scores them together
+    private void checkLines() {
+        int full = model.board.fullRows();
+        if (full == 0)
+            return;
+        int lines = Integer.bitCount(full);
+        int points = LINE_SCORES[Math.min(lines, LINE_SCORES.length - 1)];
+        model.score += model.isActive(Perk.DOUBLE_SCORE) ? points * 2 : points;
 
-        if (model.score >= 2000 && model.level == 2) {
-            model.level = 3;
-            model.isFlickerMode = true;
-        }
+        for (int i = 0; i < lines; i++)
+            if (rand.nextInt(100) < 30)
+                givePerk();
 
-        if (model.score >= 3000 && model.level == 3) {
-            model.level = 4;
-            model.lives++;
-            model.isFlickerMode = true;
-        }
+        model.board.clearRows(full);
+        emit(GameEvents.LINES_CLEARED, full, lines);
+    }
 
-        if (model.score >= 4000 && model.level == 4) {
-            model.level = 5;
-            model.lives++;
-            model.isFlickerMode = true;
-        }
+    // One comparison per tick until the score reaches the cached next
+    // threshold, then every level (and the bonus life) passed is applied
+    private void updateLogic() {
+        if (model.score < nextThreshold)
+            return;
 
-        if (model.score >= 5000 && model.level == 5) {
-            model.level = 6;
-            model.lives++;
-            model.isFlickerMode = true;
+        while (model.score >= stages.threshold(model.level + 1)) {
+            model.level++;
+            emit(GameEvents.LEVEL_UP, model.level, 0);
+            model.lives += stages.lives(model.level);
+            if (stages.lives(model.level) > 0)
+                emit(GameEvents.LIFE_GAINED, model.lives, 0);
+            model.isFlickerMode = stages.flicker(model.level);
+            if (!model.isActive(Perk.SLOW_TIME))
+                setDelay(stages.delay(model.level));
         }
 
-        if (model.score >= 5000 && !model.bonusLifeGiven5000) {
-            if (model.lives < 3) {
+        if (model.score >= stages.bonusScore && !model.bonusLifeGiven5000) {
+            if (model.lives < stages.bonusMaxLives) {
                 model.lives++;
-                GameEnhancer.playBonusSound();
+                emit(GameEvents.LIFE_GAINED, model.lives, 0);
             }
             model.bonusLifeGiven5000 = true;
         }
+        updateNextThreshold();
+    }
 
-        if (model.perkCooldown > 0)
-            model.perkCooldown--;
-
-        if (model.slowTime) {
-            model.slowTimer--;
-            if (model.slowTimer <= 0) {
-                model.slowTime = false;
-                timerCallback.setDelay(600);
-            }
-        }
+    private void updateNextThreshold() {
+        nextThreshold = stages.threshold(model.level + 1);
+        if (!model.bonusLifeGiven5000)
+            nextThreshold = Math.min(nextThreshold, stages.bonusScore);
+    }
 
-        if (model.doubleScore) {
-            model.doubleTimer--;
-            if (model.doubleTimer <= 0)
-                model.doubleScore = false;
-        }
+    // Fired by the timer wheel; the cooldown needs no action when it ends
+    private void onTimer(int id) {
+        if (id < Perk.COUNT) {
+            Perk.of(id).expire(perkHost);
+            emit(GameEvents.PERK_EXPIRED, id, 0);
+        } else if (id == GameBoard.LOCK_TIMER)
+            lockDue = true; // the tick that fired it locks the piece
     }
 
-    public int getGhostY() {
-        int ghostY = curY;
-        while (canMove(currentPiece, curX, ghostY + 1))
-            ghostY++;
-        return ghostY;
+    private void emit(int type, int a, int b) {
+        events.publish(type, a, b, model.timers.now());
     }
 
-    // Called every 1 real second to count down active perk timers
-    public void tickSeconds() {
-        if (model.slowTime) {
-            model.slowTimeSeconds--;
-            if (model.slowTimeSeconds <= 0) {
-                model.slowTime = false;
-                model.slowTimeSeconds = 0;
-                timerCallback.setDelay(600);
-            }
-        }
-        if (model.doubleScore) {
-            model.doubleScoreSeconds--;
-            if (model.doubleScoreSeconds <= 0) {
-                model.doubleScore = false;
-                model.doubleScoreSeconds = 0;
-            }
-        }
-        if (model.shield) {
-            model.shieldSeconds--;
-            if (model.shieldSeconds <= 0) {
-                model.shield = false;
-                model.shieldSeconds = 0;
-            }
-        }
-        if (model.bomb) {
-            model.bombSeconds--;
-            if (model.bombSeconds <= 0) {
-                model.bomb = false;
-                model.bombSeconds = 0;
-            }
-        }
-        if (model.lucky) {
-            model.luckySeconds--;
-            if (model.luckySeconds <= 0) {
-                model.lucky = false;
-                model.luckySeconds = 0;
-            }
+    public int getGhostY() {
+        int version = model.board.getVersion();
+        if (ghostPiece != pieceCount || ghostX != curX || ghostRotation != currentRotation
+                || ghostVersion != version) {
+            ghostPiece = pieceCount;
+            ghostX = curX;
+            ghostRotation = currentRotation;
+            ghostVersion = version;
+            ghostY = canMove(currentPieceType, currentRotation, curX, curY)
+                    ? curY + model.board.dropDistance(currentPieceType, currentRotation, curX, curY)
+                    : curY;
         }
+        return ghostY;
     }
 }
\ No newline at end of file
@@ -4,4 +4,4 @@ public interface GameView {
     void onRepaint();
 
     void onGameOver(String name, int score);
-}
\ No newline at end of file
+}
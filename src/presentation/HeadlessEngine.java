@@ -0,0 +1,89 @@
+package src.presentation;
+
+import src.model.GameBoard;
+
+// Runs a full game without Swing or AWT. The presenter is driven by a
+// FixedStepClock in fixed simulated steps, so a game finishes as fast as the
+// CPU allows instead of at gravity speed.
+public class HeadlessEngine implements GameView {
+
+    public static final int DEFAULT_STEP = 50;
+
+    // Gets a chance to steer the current piece before every simulated step
+    public interface Controller {
+        void onStep(GamePresenter presenter, long time);
+    }
+
+    private final GameBoard model;
+    private final GamePresenter presenter;
+    private final FixedStepClock clock = new FixedStepClock();
+    private Controller controller;
+    private int step = DEFAULT_STEP;
+    private long maxTicks = Long.MAX_VALUE;
+    private boolean gameOver = false;
+
+    public HeadlessEngine(String playerName) {
+        model = new GameBoard();
+        presenter = new GamePresenter(model, playerName, this, clock);
+    }
+
+    public HeadlessEngine(String playerName, long seed) {
+        model = new GameBoard();
+        presenter = new GamePresenter(model, playerName, this, clock, seed);
+    }
+
+    public HeadlessEngine setController(Controller controller) {
+        this.controller = controller;
+        return this;
+    }
+
+    public HeadlessEngine setStep(int step) {
+        this.step = step;
+        return this;
+    }
+
+    public HeadlessEngine setMaxTicks(long maxTicks) {
+        this.maxTicks = maxTicks;
+        return this;
+    }
+
+    // Plays until game over or until maxTicks gravity ticks have elapsed
+    public GameBoard run() {
+        presenter.newPiece();
+        while (!gameOver && clock.getTicks() < maxTicks) {
+            if (controller != null)
+                controller.onStep(presenter, clock.getTime());
+            if (gameOver)
+                break;
+            clock.advance(presenter, step);
+            presenter.flushEvents();
+        }
+        return model;
+    }
+
+    public GameBoard getModel() {
+        return model;
+    }
+
+    public GamePresenter getPresenter() {
+        return presenter;
+    }
+
+    public FixedStepClock getClock() {
+        return clock;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public void onRepaint() {
+    }
+
+    @Override
+    public void onGameOver(String name, int score) {
+        gameOver = true;
+        clock.stop();
+    }
+}
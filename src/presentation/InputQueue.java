@@ -0,0 +1,176 @@
+package src.presentation;
+
+import src.model.GameBoard;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Buffers timestamped key presses and releases from the UI thread until the
+// logic thread drains them at the start of a logic step, so input never
+// touches game state from the EDT. Held Left, Right and Down keys repeat on
+// the engine's own timing instead of the OS key repeat: a sideways move
+// repeats after DAS ms (delayed auto-shift) and then every ARR ms
+// (auto-repeat rate), soft drop repeats every ARR ms from the start. Other
+// keys act once per press.
+//
+// Single producer, single consumer ring of packed longs: no locks and no
+// allocation per key. Times are in ms on whatever clock the caller uses for
+// both press() and drain().
+public class InputQueue {
+
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int ROTATE = 3;
+    public static final int PERK_1 = 4;
+    public static final int PERK_2 = 5;
+    public static final int PERK_3 = 6;
+    public static final int HARD_DROP = 7;
+    private static final int RESET = 8; // forget held keys, e.g. after a pause
+
+    public static final int DEFAULT_DAS = 170;
+    public static final int DEFAULT_ARR = 50;
+
+    private static final int CAPACITY = 256; // power of two
+    private static final int REPEATABLE = 3; // LEFT, RIGHT, DOWN
+    private static final long IDLE = Long.MAX_VALUE;
+
+    private final long[] ring = new long[CAPACITY];
+    private final AtomicLong head = new AtomicLong(); // next slot to read
+    private final AtomicLong tail = new AtomicLong(); // next slot to write
+
+    private final int das;
+    private final int arr;
+
+    // Consumer-side key state
+    private final boolean[] held = new boolean[RESET];
+    private final long[] nextRepeat = { IDLE, IDLE, IDLE };
+    private int lastSideways = -1; // the most recently pressed of LEFT/RIGHT wins
+    private long firstUnshown = -1; // time of the earliest press applied since takeFirstUnshown()
+
+    public InputQueue() {
+        this(Integer.getInteger("tetris.das", DEFAULT_DAS), Integer.getInteger("tetris.arr", DEFAULT_ARR));
+    }
+
+    public InputQueue(int das, int arr) {
+        this.das = das;
+        this.arr = Math.max(0, arr);
+    }
+
+    // Producer side. Returns false if the queue is full and the event was dropped.
+    public boolean press(int action, long time) {
+        return offer(action, true, time);
+    }
+
+    public boolean release(int action, long time) {
+        return offer(action, false, time);
+    }
+
+    public void reset(long time) {
+        offer(RESET, true, time);
+    }
+
+    private boolean offer(int action, boolean pressed, long time) {
+        long t = tail.get();
+        if (t - head.get() >= CAPACITY)
+            return false;
+        ring[(int) t & (CAPACITY - 1)] = time << 5 | action << 1 | (pressed ? 1 : 0);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Consumer side. Applies every buffered event and every auto-repeat due
+    // up to now, in time order.
+    public void drain(GamePresenter presenter, long now) {
+        long h = head.get();
+        long t = tail.get();
+        for (; h < t; h++) {
+            long e = ring[(int) h & (CAPACITY - 1)];
+            long time = Math.min(e >>> 5, now);
+            repeat(presenter, time);
+            apply(presenter, (int) (e >>> 1) & 15, (e & 1) != 0, time);
+        }
+        head.lazySet(h);
+        repeat(presenter, now);
+    }
+
+    private void apply(GamePresenter presenter, int action, boolean pressed, long time) {
+        if (action == RESET) {
+            Arrays.fill(held, false);
+            Arrays.fill(nextRepeat, IDLE);
+            lastSideways = -1;
+            return;
+        }
+        if (!pressed) {
+            held[action] = false;
+            if (action < REPEATABLE) {
+                nextRepeat[action] = IDLE;
+                if (action == lastSideways) {
+                    // fall back to the other direction if it is still held, charging DAS again
+                    int other = LEFT + RIGHT - action;
+                    lastSideways = nextRepeat[other] != IDLE ? other : -1;
+                    if (lastSideways >= 0)
+                        nextRepeat[other] = time + das;
+                }
+            }
+            return;
+        }
+        if (held[action])
+            return; // already held, this is the OS key repeat
+        held[action] = true;
+        if (firstUnshown < 0)
+            firstUnshown = time;
+        if (action < REPEATABLE) {
+            nextRepeat[action] = time + (action == DOWN ? arr : das);
+            if (action != DOWN)
+                lastSideways = action;
+        }
+        perform(presenter, action);
+    }
+
+    // Fires held keys whose repeat time has come, at most a board's worth per
+    // key so a long stall cannot replay hundreds of moves
+    private void repeat(GamePresenter presenter, long time) {
+        for (int a = 0; a < REPEATABLE; a++) {
+            if (a != DOWN && a != lastSideways)
+                continue;
+            int limit = a == DOWN ? GameBoard.BOARD_HEIGHT : GameBoard.BOARD_WIDTH;
+            for (int n = 0; nextRepeat[a] <= time && n < limit; n++) {
+                perform(presenter, a);
+                nextRepeat[a] += Math.max(arr, 1);
+            }
+            if (nextRepeat[a] <= time)
+                nextRepeat[a] = time + Math.max(arr, 1);
+        }
+    }
+
+    // Consumer side. Time of the earliest press applied since the last call,
+    // or -1; views call it after painting to measure input-to-render latency.
+    public long takeFirstUnshown() {
+        long t = firstUnshown;
+        firstUnshown = -1;
+        return t;
+    }
+
+    private static void perform(GamePresenter presenter, int action) {
+        switch (action) {
+            case LEFT:
+                presenter.moveLeft();
+                break;
+            case RIGHT:
+                presenter.moveRight();
+                break;
+            case DOWN:
+                presenter.moveDown();
+                break;
+            case ROTATE:
+                presenter.rotatePiece();
+                break;
+            case HARD_DROP:
+                presenter.hardDrop();
+                break;
+            default:
+                presenter.usePerk(action - PERK_1);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package src.presentation;
+
+import java.util.Arrays;
+
+// Fixed-size log-linear histogram in the style of HdrHistogram: values
+// below 32 get a bucket each, larger ones fall into 32 buckets per power of
+// two, so any value is kept to within about 3% over the whole long range in
+// under 2,000 counters. Recording is a couple of shifts and an increment,
+// with no allocation.
+//
+// One thread records; others (JMX, the debug overlay) may read at any time
+// and see counts that are at most a few records behind.
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+    private final long[] counts = new long[BUCKETS];
+    private volatile long count = 0;
+    private volatile long total = 0;
+    private volatile long max = 0;
+
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts[index(value)]++;
+        total += value;
+        if (value > max)
+            max = value;
+        count++;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        long n = count;
+        return n == 0 ? 0 : (double) total / n;
+    }
+
+    // Smallest value at least the given fraction (0..1) of records are at or below
+    public long percentile(double fraction) {
+        long n = count;
+        if (n == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(highest(i), max);
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    private static int index(long value) {
+        if (value < SUB)
+            return (int) value;
+        int exp = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BITS
+        return (exp - SUB_BITS + 1) * SUB + (int) ((value >>> (exp - SUB_BITS)) & (SUB - 1));
+    }
+
+    // Largest value that lands in bucket i
+    private static long highest(int i) {
+        if (i < SUB)
+            return i;
+        int exp = i / SUB + SUB_BITS - 1;
+        long low = (long) (SUB + i % SUB) << (exp - SUB_BITS);
+        return low + (1L << (exp - SUB_BITS)) - 1;
+    }
+}
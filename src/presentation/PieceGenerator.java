@@ -0,0 +1,149 @@
+package src.presentation;
+
+import java.util.Arrays;
+
+// Decides which piece spawns next. Every generator is deterministic for its
+// seed, so replays re-simulate the same pieces and games started from the
+// same seed see the same sequence whatever their players do. Pieces handed
+// to the generator up front (pending) come out before any it picks itself;
+// that is how a snapshot hands over the rest of a bag and how a fixed
+// sequence is played back.
+public interface PieceGenerator {
+
+    int UNIFORM = 0; // any piece, independently each time (the original behaviour)
+    int BAG = 1; // every piece once per shuffled bag of seven
+    int SEQUENCE = 2; // a fixed list, then uniform
+
+    int kind();
+
+    int next();
+
+    // Pieces already decided but not yet handed out, in order
+    int[] pending();
+
+    // State of the generator's RNG; reset(state(), pending()) changes nothing
+    long state();
+
+    // Continues from an RNG state, handing out pending first
+    void reset(long state, int[] pending);
+
+    // The generator for a game seed. Its stream is derived from, but
+    // independent of, the game's own RNG, so perk rolls never shift pieces.
+    static PieceGenerator create(int kind, long gameSeed, int[] pending) {
+        PieceGenerator generator;
+        switch (kind) {
+            case UNIFORM:
+                generator = new Uniform();
+                break;
+            case BAG:
+                generator = new Bag();
+                break;
+            case SEQUENCE:
+                generator = new Sequence();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown piece generator " + kind);
+        }
+        generator.reset(SplitMix.mix(gameSeed + 0x9E3779B97F4A7C15L), pending);
+        return generator;
+    }
+
+    // "uniform", "bag" or "sequence:<types>", e.g. "sequence:0123456"
+    static PieceGenerator parse(String spec, long gameSeed) {
+        if (spec.equals("uniform"))
+            return create(UNIFORM, gameSeed, new int[0]);
+        if (spec.equals("bag"))
+            return create(BAG, gameSeed, new int[0]);
+        if (spec.startsWith("sequence:")) {
+            String list = spec.substring("sequence:".length());
+            int[] pieces = new int[list.length()];
+            for (int i = 0; i < pieces.length; i++) {
+                pieces[i] = list.charAt(i) - '0';
+                if (pieces[i] < 0 || pieces[i] >= Uniform.TYPES)
+                    throw new IllegalArgumentException("bad piece type '" + list.charAt(i) + "'");
+            }
+            return create(SEQUENCE, gameSeed, pieces);
+        }
+        throw new IllegalArgumentException("unknown piece generator " + spec);
+    }
+
+    // Generator chosen by -Dtetris.generator, default uniform so games play as
+    // they always have; -Dtetris.generator=bag opts in to the 7-bag. A bad
+    // value is reported and the default used, like a bad level profile.
+    static PieceGenerator getDefault(long gameSeed) {
+        String spec = System.getProperty("tetris.generator", "uniform");
+        try {
+            return parse(spec, gameSeed);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Piece generator " + spec + " unusable, using uniform: " + e.getMessage());
+            return create(UNIFORM, gameSeed, new int[0]);
+        }
+    }
+
+    class Uniform implements PieceGenerator {
+        static final int TYPES = 7;
+
+        final SplitMix rand = new SplitMix(0);
+        int[] pending = new int[0];
+        int pos;
+
+        public int kind() {
+            return UNIFORM;
+        }
+
+        public int next() {
+            return pos < pending.length ? pending[pos++] : pick();
+        }
+
+        int pick() {
+            return rand.nextInt(TYPES);
+        }
+
+        public int[] pending() {
+            return Arrays.copyOfRange(pending, pos, pending.length);
+        }
+
+        public long state() {
+            return rand.state;
+        }
+
+        public void reset(long state, int[] pending) {
+            rand.state = state;
+            this.pending = pending.clone();
+            pos = 0;
+        }
+    }
+
+    // The pending list is the rest of the current bag; a new bag is dealt
+    // when it runs out
+    class Bag extends Uniform {
+        private final int[] bag = new int[TYPES];
+
+        public int kind() {
+            return BAG;
+        }
+
+        @Override
+        int pick() {
+            for (int i = 0; i < TYPES; i++)
+                bag[i] = i;
+            for (int i = TYPES - 1; i > 0; i--) { // Fisher-Yates
+                int j = rand.nextInt(i + 1);
+                int t = bag[i];
+                bag[i] = bag[j];
+                bag[j] = t;
+            }
+            pending = bag;
+            pos = 1;
+            return bag[0];
+        }
+    }
+
+    // Replay-driven: plays back a recorded list of pieces, e.g. a tournament
+    // round, and continues uniformly from the seed once it is used up
+    class Sequence extends Uniform {
+        public int kind() {
+            return SEQUENCE;
+        }
+    }
+}
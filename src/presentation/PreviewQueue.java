@@ -0,0 +1,90 @@
+package src.presentation;
+
+import java.util.Arrays;
+
+// The next pieces to spawn, drawn ahead from a PieceGenerator into a ring
+// buffer of fixed depth. Taking the head refills the slot it leaves, so
+// the queue always shows depth pieces and never allocates while playing.
+public final class PreviewQueue {
+
+    public static final int DEFAULT_DEPTH = 3;
+    public static final int MAX_DEPTH = 6;
+
+    private final int[] ring;
+    private final PieceGenerator generator;
+    private int head = 0;
+    private boolean filled = false; // drawn at the first spawn, so a recording sees the generator untouched
+
+    PreviewQueue(PieceGenerator generator, int depth) {
+        this.generator = generator;
+        ring = new int[Math.max(1, Math.min(depth, MAX_DEPTH))];
+    }
+
+    public int depth() {
+        return ring.length;
+    }
+
+    // Type of the i-th upcoming piece (0 = next), or -1 before the first spawn
+    public int peek(int i) {
+        return filled ? ring[(head + i) % ring.length] : -1;
+    }
+
+    PieceGenerator generator() {
+        return generator;
+    }
+
+    int take() {
+        fill();
+        int type = ring[head];
+        ring[head] = generator.next();
+        head = (head + 1) % ring.length;
+        return type;
+    }
+
+    // Removes the first queued piece of this type, shifting the rest up.
+    // Returns false if none is queued.
+    boolean remove(int type) {
+        fill();
+        int n = ring.length;
+        for (int i = 0; i < n; i++) {
+            if (ring[(head + i) % n] == type) {
+                for (int j = i; j < n - 1; j++)
+                    ring[(head + j) % n] = ring[(head + j + 1) % n];
+                ring[(head + n - 1) % n] = generator.next();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int[] toArray() {
+        fill();
+        int[] pieces = new int[ring.length];
+        for (int i = 0; i < pieces.length; i++)
+            pieces[i] = ring[(head + i) % ring.length];
+        return pieces;
+    }
+
+    // Continues from a snapshot's queue and generator state. Queued pieces
+    // beyond this queue's depth go back in front of the generator's pending
+    // ones, so a different depth still yields the same sequence.
+    void restore(int[] pieces, long state, int[] pending) {
+        int keep = Math.min(pieces.length, ring.length);
+        int[] rest = Arrays.copyOf(Arrays.copyOfRange(pieces, keep, pieces.length), pieces.length - keep + pending.length);
+        System.arraycopy(pending, 0, rest, pieces.length - keep, pending.length);
+        generator.reset(state, rest);
+        System.arraycopy(pieces, 0, ring, 0, keep);
+        for (int i = keep; i < ring.length; i++)
+            ring[i] = generator.next();
+        head = 0;
+        filled = true;
+    }
+
+    private void fill() {
+        if (filled)
+            return;
+        for (int i = 0; i < ring.length; i++)
+            ring[i] = generator.next();
+        filled = true;
+    }
+}
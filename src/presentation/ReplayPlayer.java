@@ -0,0 +1,140 @@
+package src.presentation;
+
+import src.model.GameBoard;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+// Re-simulates a recorded game headlessly, as fast as the CPU allows, and
+// checks the final score against the one the recording claims.
+public class ReplayPlayer implements GameView {
+
+    public static class Result {
+        public String playerName;
+        public long gameId;
+        public int claimedScore = -1; // -1 if the recording has no END event
+        public int replayedScore;
+        public int level;
+        public long ticks;
+        public boolean gameOver; // the re-simulated game ended where the recording did
+
+        public boolean isValid() {
+            return gameOver && claimedScore >= 0 && claimedScore == replayedScore;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s game %016x: claimed %s, replayed %d (level %d, %d ticks)%s", playerName,
+                    gameId, claimedScore < 0 ? "nothing" : Integer.toString(claimedScore), replayedScore, level,
+                    ticks, isValid() ? "" : "  MISMATCH");
+        }
+    }
+
+    private boolean gameOver = false;
+
+    private ReplayPlayer() {
+    }
+
+    public static Result play(byte[] replay) throws IOException {
+        return new ReplayPlayer().run(replay);
+    }
+
+    private Result run(byte[] replay) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(replay));
+        if (in.readInt() != ReplayRecorder.MAGIC)
+            throw new IOException("not a replay");
+        int version = in.readUnsignedByte();
+        if (version != ReplayRecorder.VERSION)
+            throw new IOException("unsupported replay version " + version);
+        long seed = in.readLong();
+        Result result = new Result();
+        result.gameId = in.readLong();
+        if (in.readInt() != leveStages.getDefault().fingerprint())
+            throw new IOException("recorded with a different level profile");
+        int generatorKind = in.readUnsignedByte();
+        int previewDepth = in.readUnsignedByte();
+        int[] pending = new int[in.readUnsignedShort()];
+        for (int i = 0; i < pending.length; i++)
+            pending[i] = in.readUnsignedByte();
+        result.playerName = in.readUTF();
+        PieceGenerator generator;
+        try {
+            generator = PieceGenerator.create(generatorKind, seed, pending);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        GameBoard model = new GameBoard();
+        GamePresenter presenter = new GamePresenter(model, result.playerName, this, delay -> {
+        }, seed, generator, previewDepth);
+        presenter.newPiece();
+
+        // Once the re-simulated game is over, remaining events are only
+        // parsed to find the claimed score.
+        while (result.claimedScore < 0 && in.available() > 0) {
+            long delta = readVarint(in);
+            for (long i = 0; i < delta && !gameOver; i++) {
+                presenter.tick();
+                result.ticks++;
+            }
+            int op = in.readUnsignedByte();
+            if (gameOver && op != ReplayRecorder.END) {
+                if (op == ReplayRecorder.PERK)
+                    in.readUnsignedByte();
+                continue;
+            }
+            switch (op) {
+                case ReplayRecorder.LEFT:
+                    presenter.moveLeft();
+                    break;
+                case ReplayRecorder.RIGHT:
+                    presenter.moveRight();
+                    break;
+                case ReplayRecorder.DOWN:
+                    presenter.moveDown();
+                    break;
+                case ReplayRecorder.ROTATE:
+                    presenter.rotatePiece();
+                    break;
+                case ReplayRecorder.HARD_DROP:
+                    presenter.hardDrop();
+                    break;
+                case ReplayRecorder.PERK:
+                    presenter.usePerk(in.readUnsignedByte());
+                    break;
+                case ReplayRecorder.END:
+                    result.claimedScore = (int) readVarint(in);
+                    break;
+                default:
+                    throw new IOException("bad replay op " + op);
+            }
+        }
+
+        result.gameOver = gameOver;
+        result.replayedScore = model.score;
+        result.level = model.level;
+        return result;
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return v;
+    }
+
+    @Override
+    public void onRepaint() {
+    }
+
+    @Override
+    public void onGameOver(String name, int score) {
+        gameOver = true;
+    }
+}
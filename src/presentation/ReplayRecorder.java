@@ -0,0 +1,144 @@
+package src.presentation;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Records everything a presenter needs to re-simulate a game: the RNG seed,
+// the piece generator and every input, stamped with the number of gravity
+// ticks before it.
+//
+// Format: int magic, byte version, long seed, long game id, int level table
+// fingerprint, byte generator kind, byte preview depth, short count and
+// bytes of the generator's pending pieces, UTF player name, then events. Each event is a varint tick delta since the previous event
+// followed by an op byte (PERK is followed by the slot byte, END by the
+// final score as a varint). ReplayPlayer reads it back.
+public class ReplayRecorder {
+
+    public static final int MAGIC = 0x5452504C; // "TRPL"
+    // 2: perk timers run on game time, so version 1 SECOND events no longer replay
+    // 3: level progression comes from leveStages, identified by its fingerprint
+    // 4: HARD_DROP, and lock delay from the level profile
+    // 5: pieces from a PieceGenerator through the preview queue
+    // 6: rows cleared together score as single, double, triple or tetris
+    // 7: the perk cooldown lasts 15 gravity intervals at the current speed
+    // 8: SplitMix RNGs, and snapshots no longer reseed them, so no SNAPSHOT op
+    public static final int VERSION = 8;
+
+    public static final int LEFT = 1;
+    public static final int RIGHT = 2;
+    public static final int DOWN = 3;
+    public static final int ROTATE = 4;
+    public static final int PERK = 5;
+    // 6 was SECOND, the version 1 real-time perk countdown
+    public static final int END = 7;
+    // 8 was SNAPSHOT, which marked the reseeding done by version 7 snapshots
+    public static final int HARD_DROP = 9;
+
+    private final ByteArrayOutputStream events = new ByteArrayOutputStream(4096);
+    private final long seed;
+    private final long gameId;
+    private final int levelTable;
+    private final int generatorKind;
+    private final int previewDepth;
+    private final int[] pendingPieces;
+    private final String playerName;
+    private long ticks = 0;
+    private long lastEventTick = 0;
+    private boolean ended = false;
+
+    public ReplayRecorder(long seed, long gameId, String playerName, int levelTable, PieceGenerator generator,
+            int previewDepth) {
+        this.seed = seed;
+        this.gameId = gameId;
+        this.levelTable = levelTable;
+        this.generatorKind = generator.kind();
+        this.previewDepth = previewDepth;
+        this.pendingPieces = generator.pending();
+        this.playerName = playerName;
+    }
+
+    void tick() {
+        ticks++;
+    }
+
+    void event(int op) {
+        if (ended)
+            return;
+        writeVarint(ticks - lastEventTick);
+        lastEventTick = ticks;
+        events.write(op);
+    }
+
+    void perk(int slot) {
+        if (ended)
+            return;
+        event(PERK);
+        events.write(slot);
+    }
+
+    void end(int score) {
+        if (ended)
+            return;
+        event(END);
+        writeVarint(score);
+        ended = true;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    private void writeVarint(long v) {
+        while ((v & ~0x7FL) != 0) {
+            events.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        events.write((int) v);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(seed);
+        data.writeLong(gameId);
+        data.writeInt(levelTable);
+        data.writeByte(generatorKind);
+        data.writeByte(previewDepth);
+        data.writeShort(pendingPieces.length);
+        for (int type : pendingPieces)
+            data.writeByte(type);
+        data.writeUTF(playerName);
+        events.writeTo(data);
+        data.flush();
+    }
+
+    // Writes <gameId>.replay into dir; failures are reported, not thrown, so a
+    // full disk never interrupts the game-over flow
+    public void save(File dir) {
+        File file = new File(dir, String.format("%016x.replay", gameId));
+        try {
+            dir.mkdirs();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                writeTo(out);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not save replay " + file + ": " + e.getMessage());
+        }
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(events.size() + 64);
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for an in-memory stream
+        }
+        return out.toByteArray();
+    }
+}
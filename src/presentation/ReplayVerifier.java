@@ -0,0 +1,41 @@
+package src.presentation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Bulk audit: re-simulates every *.replay file in a directory in parallel
+// and reports the ones whose final score does not match the recording.
+public class ReplayVerifier {
+
+    public static void verify(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".replay"));
+        if (files == null) {
+            System.out.println("No such directory: " + dir);
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> failures = Arrays.stream(files).parallel()
+                .map(ReplayVerifier::check)
+                .filter(msg -> msg != null)
+                .collect(Collectors.toList());
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        failures.forEach(System.out::println);
+        System.out.printf("Verified %d replays in %.2fs (%.0f/min), %d failed%n", files.length, seconds,
+                files.length / Math.max(seconds, 1e-9) * 60, failures.size());
+    }
+
+    // null if the replay checks out, otherwise a line describing the problem
+    private static String check(File file) {
+        try {
+            ReplayPlayer.Result result = ReplayPlayer.play(Files.readAllBytes(file.toPath()));
+            return result.isValid() ? null : file.getName() + ": " + result;
+        } catch (IOException e) {
+            return file.getName() + ": unreadable (" + e.getMessage() + ")";
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package src.presentation;
+
+// SplitMix64: a tiny RNG whose whole state is one long. Perk rolls and the
+// piece generators use it instead of java.util.Random so a snapshot can read
+// that state and continue from it without reseeding the live game.
+final class SplitMix {
+
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    long state;
+
+    SplitMix(long state) {
+        this.state = state;
+    }
+
+    // The SplitMix64 finalizer, so neighbouring seeds give unrelated streams
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    long nextLong() {
+        state += GAMMA;
+        return mix(state);
+    }
+
+    // Uniform in [0, bound), rejecting the top values that would bias the remainder
+    int nextInt(int bound) {
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0)
+            return (int) ((bound * (long) r) >> 31);
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33))
+            ;
+        return r;
+    }
+}
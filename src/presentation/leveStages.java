@@ -1,7 +1,173 @@
 package src.presentation;
 
-// This is for the level stages number for the level optimization
-// Sunday must finished this 
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Properties;
+
+// Level progression table: the score needed for each level, its gravity
+// delay, whether the board flickers and how many lives reaching it awards.
+// Loaded from the properties file named by -Dtetris.levels, otherwise the
+// built-in DEFAULTS (the original six levels). A profile lists levels as
+//
+//     level.<n> = <score>, <delay ms>, <flicker>, <extra lives>
+//
+// and may continue past its last listed level with a generated curve: each
+// further level needs curve.step more points and multiplies the delay by
+// curve.factor, down to curve.minDelay. max.level caps the total (0 = none).
+// bonus.score awards one life, once, to a player below bonus.maxLives.
+// lock.delay is how many ms of game time a landed piece may still be moved
+// before it locks (0 = it locks on the next gravity tick).
 public class leveStages {
 
+    static final String DEFAULTS = String.join("\n",
+            "level.1 = 0, 600, false, 0",
+            "level.2 = 1000, 350, false, 0",
+            "level.3 = 2000, 350, true, 0",
+            "level.4 = 3000, 350, true, 1",
+            "level.5 = 4000, 350, true, 1",
+            "level.6 = 5000, 350, true, 1",
+            "max.level = 6",
+            "curve.step = 1000",
+            "curve.factor = 0.9",
+            "curve.minDelay = 80",
+            "curve.flicker = true",
+            "curve.lives = 0",
+            "bonus.score = 5000",
+            "bonus.maxLives = 3",
+            "lock.delay = 0");
+
+    private static leveStages defaultStages;
+
+    // Listed levels; index 0 is level 1
+    private final int[] thresholds;
+    private final int[] delays;
+    private final boolean[] flicker;
+    private final int[] lives;
+
+    private final int maxLevel;
+    private final int curveStep;
+    private final double curveFactor;
+    private final int curveMinDelay;
+    private final boolean curveFlicker;
+    private final int curveLives;
+
+    public final int bonusScore;
+    public final int bonusMaxLives;
+    public final int lockDelay;
+
+    private leveStages(Properties p) {
+        int listed = 0;
+        while (p.getProperty("level." + (listed + 1)) != null)
+            listed++;
+        if (listed == 0)
+            throw new IllegalArgumentException("no level.1 entry");
+        thresholds = new int[listed];
+        delays = new int[listed];
+        flicker = new boolean[listed];
+        lives = new int[listed];
+        for (int i = 0; i < listed; i++) {
+            String[] f = p.getProperty("level." + (i + 1)).split(",");
+            if (f.length != 4)
+                throw new IllegalArgumentException("level." + (i + 1) + " needs score, delay, flicker, lives");
+            thresholds[i] = Integer.parseInt(f[0].trim());
+            delays[i] = Integer.parseInt(f[1].trim());
+            flicker[i] = Boolean.parseBoolean(f[2].trim());
+            lives[i] = Integer.parseInt(f[3].trim());
+            if (i > 0 && thresholds[i] <= thresholds[i - 1])
+                throw new IllegalArgumentException("level." + (i + 1) + " score must be above the previous level");
+        }
+        maxLevel = Integer.parseInt(p.getProperty("max.level", "0").trim());
+        curveStep = Integer.parseInt(p.getProperty("curve.step", "1000").trim());
+        curveFactor = Double.parseDouble(p.getProperty("curve.factor", "0.9").trim());
+        curveMinDelay = Integer.parseInt(p.getProperty("curve.minDelay", "80").trim());
+        curveFlicker = Boolean.parseBoolean(p.getProperty("curve.flicker", "true").trim());
+        curveLives = Integer.parseInt(p.getProperty("curve.lives", "0").trim());
+        bonusScore = Integer.parseInt(p.getProperty("bonus.score", "5000").trim());
+        bonusMaxLives = Integer.parseInt(p.getProperty("bonus.maxLives", "3").trim());
+        lockDelay = Integer.parseInt(p.getProperty("lock.delay", "0").trim());
+        if (curveStep <= 0)
+            throw new IllegalArgumentException("curve.step must be positive");
+    }
+
+    // Table used by every game, read once. A broken profile is reported and
+    // the built-in table used instead, so a typo never stops the game.
+    public static synchronized leveStages getDefault() {
+        if (defaultStages == null) {
+            String path = System.getProperty("tetris.levels");
+            if (path != null) {
+                try {
+                    defaultStages = load(new File(path));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Level profile " + path + " unusable, using defaults: " + e.getMessage());
+                }
+            }
+            if (defaultStages == null)
+                defaultStages = parse(DEFAULTS);
+        }
+        return defaultStages;
+    }
+
+    public static leveStages load(File file) throws IOException {
+        Properties p = new Properties();
+        try (Reader in = new FileReader(file)) {
+            p.load(in);
+        }
+        return new leveStages(p);
+    }
+
+    public static leveStages parse(String profile) {
+        Properties p = new Properties();
+        try {
+            p.load(new StringReader(profile));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for an in-memory reader
+        }
+        return new leveStages(p);
+    }
+
+    // Score needed to reach the level; Integer.MAX_VALUE past the last one
+    public int threshold(int level) {
+        if (maxLevel > 0 && level > maxLevel)
+            return Integer.MAX_VALUE;
+        if (level <= thresholds.length)
+            return thresholds[Math.max(level, 1) - 1];
+        long t = thresholds[thresholds.length - 1] + (long) curveStep * (level - thresholds.length);
+        return (int) Math.min(t, Integer.MAX_VALUE);
+    }
+
+    public int delay(int level) {
+        if (level <= delays.length)
+            return delays[Math.max(level, 1) - 1];
+        double d = delays[delays.length - 1] * Math.pow(curveFactor, level - delays.length);
+        return Math.max(curveMinDelay, (int) Math.round(d));
+    }
+
+    public boolean flicker(int level) {
+        return level <= flicker.length ? flicker[Math.max(level, 1) - 1] : curveFlicker;
+    }
+
+    public int lives(int level) {
+        return level <= lives.length ? lives[Math.max(level, 1) - 1] : curveLives;
+    }
+
+    // Identifies the table, so replays recorded under another profile are recognised
+    public int fingerprint() {
+        int h = Arrays.hashCode(thresholds);
+        h = h * 31 + Arrays.hashCode(delays);
+        h = h * 31 + Arrays.hashCode(flicker);
+        h = h * 31 + Arrays.hashCode(lives);
+        h = h * 31 + maxLevel;
+        h = h * 31 + curveStep;
+        h = h * 31 + Double.hashCode(curveFactor);
+        h = h * 31 + curveMinDelay;
+        h = h * 31 + Boolean.hashCode(curveFlicker);
+        h = h * 31 + curveLives;
+        h = h * 31 + bonusScore;
+        h = h * 31 + bonusMaxLives;
+        return h * 31 + lockDelay;
+    }
 }
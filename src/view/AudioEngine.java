@@ -0,0 +1,208 @@
+package src.view;
+
+import src.presentation.GameEnhancer;
+import src.presentation.GameEvents;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.awt.GraphicsEnvironment;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Game sounds, synthesized once into 16-bit PCM clips and mixed on a daemon
+// thread of minimum priority. The game thread only drops clip numbers into a
+// lock-free ring and wakes the mixer, so a sound never costs the tick more
+// than a few array writes. Subscribed to the presenter's events by the
+// Swing views; headless runs never create it.
+//
+// Off when AWT is headless, when -Dtetris.sound=false or when
+// GameEnhancer.soundEnabled is cleared. Without a usable audio line the
+// views fall back to GameEnhancer's beep.
+public final class AudioEngine implements GameEvents.Listener {
+
+    public static final int LINE = 0;
+    public static final int TETRIS = 1;
+    public static final int PERK = 2;
+    public static final int PERK_USED = 3;
+    public static final int LEVEL_UP = 4;
+    public static final int LIFE = 5;
+    public static final int GAME_OVER = 6;
+    private static final int CLIPS = 7;
+
+    private static final float RATE = 22050;
+    private static final int BUFFER_FRAMES = 256; // about 12 ms per write
+    private static final int VOICES = 8;
+    private static final int QUEUE = 64; // power of two
+    private static final long IDLE_PARK_NS = 50_000_000L;
+
+    private static AudioEngine defaultEngine;
+    private static boolean initialized = false;
+
+    private final short[][] clips = new short[CLIPS][];
+    private final SourceDataLine line;
+    private final Thread mixer;
+
+    // Single producer (the game thread), single consumer (the mixer)
+    private final int[] queue = new int[QUEUE];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // Mixer-side voices: which clip each plays and how far it has got, -1 = free
+    private final int[] voiceClip = new int[VOICES];
+    private final int[] voicePos = new int[VOICES];
+
+    private AudioEngine(SourceDataLine line) {
+        this.line = line;
+        clips[LINE] = tones(60, 0.35, 880);
+        clips[TETRIS] = tones(70, 0.4, 660, 880, 1320, 1760);
+        clips[PERK] = tones(50, 0.3, 1320, 1760);
+        clips[PERK_USED] = tones(40, 0.25, 1760, 1320);
+        clips[LEVEL_UP] = tones(90, 0.35, 523, 659, 784, 1047);
+        clips[LIFE] = tones(80, 0.35, 988, 1319, 988, 1319);
+        clips[GAME_OVER] = tones(220, 0.4, 392, 330, 262);
+        Arrays.fill(voiceClip, -1);
+        mixer = new Thread(this::mix, "audio-mixer");
+        mixer.setDaemon(true);
+        mixer.setPriority(Thread.MIN_PRIORITY);
+        mixer.start();
+    }
+
+    // The shared engine, started on first use; null if sound is off or no line can be opened
+    public static synchronized AudioEngine getDefault() {
+        if (!initialized) {
+            initialized = true;
+            if (GameEnhancer.soundEnabled && !GraphicsEnvironment.isHeadless()
+                    && Boolean.parseBoolean(System.getProperty("tetris.sound", "true"))) {
+                AudioFormat format = new AudioFormat(RATE, 16, 1, true, false);
+                try {
+                    SourceDataLine line = AudioSystem.getSourceDataLine(format);
+                    line.open(format, BUFFER_FRAMES * 2 * 4);
+                    line.start();
+                    defaultEngine = new AudioEngine(line);
+                } catch (LineUnavailableException | IllegalArgumentException e) {
+                    System.err.println("No audio line, falling back to the system beep: " + e.getMessage());
+                }
+            }
+        }
+        return defaultEngine;
+    }
+
+    // What the views subscribe: the mixer when there is one, otherwise the beep
+    public static GameEvents.Listener listener() {
+        AudioEngine engine = getDefault();
+        return engine != null ? engine : GameEnhancer.SOUNDS;
+    }
+
+    // One sound per kind of event in the batch, however many there were
+    @Override
+    public void onEvents(GameEvents batch) {
+        if (!GameEnhancer.soundEnabled)
+            return;
+        int wanted = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            switch (batch.type(i)) {
+                case GameEvents.LINES_CLEARED:
+                    wanted |= 1 << (batch.b(i) >= 4 ? TETRIS : LINE);
+                    break;
+                case GameEvents.PERK_GRANTED:
+                    wanted |= 1 << PERK;
+                    break;
+                case GameEvents.PERK_USED:
+                    wanted |= 1 << PERK_USED;
+                    break;
+                case GameEvents.LEVEL_UP:
+                    wanted |= 1 << LEVEL_UP;
+                    break;
+                case GameEvents.LIFE_GAINED:
+                    wanted |= 1 << LIFE;
+                    break;
+                case GameEvents.GAME_OVER:
+                    wanted |= 1 << GAME_OVER;
+                    break;
+                default:
+            }
+        }
+        if ((wanted & 1 << TETRIS) != 0)
+            wanted &= ~(1 << LINE);
+        for (; wanted != 0; wanted &= wanted - 1)
+            play(Integer.numberOfTrailingZeros(wanted));
+    }
+
+    // Never blocks: a sound that finds the queue full is dropped
+    public void play(int clip) {
+        long t = tail.get();
+        if (t - head.get() >= QUEUE)
+            return;
+        queue[(int) t & (QUEUE - 1)] = clip;
+        tail.lazySet(t + 1);
+        LockSupport.unpark(mixer);
+    }
+
+    private void mix() {
+        int[] sum = new int[BUFFER_FRAMES];
+        byte[] out = new byte[BUFFER_FRAMES * 2];
+        int active = 0;
+        while (true) {
+            long h = head.get();
+            for (long t = tail.get(); h < t; h++)
+                if (start(queue[(int) h & (QUEUE - 1)]))
+                    active++;
+            head.lazySet(h);
+            if (active == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NS); // play() unparks us
+                continue;
+            }
+
+            Arrays.fill(sum, 0);
+            for (int v = 0; v < VOICES; v++) {
+                if (voiceClip[v] < 0)
+                    continue;
+                short[] clip = clips[voiceClip[v]];
+                int n = Math.min(BUFFER_FRAMES, clip.length - voicePos[v]);
+                for (int i = 0; i < n; i++)
+                    sum[i] += clip[voicePos[v] + i];
+                voicePos[v] += n;
+                if (voicePos[v] >= clip.length) {
+                    voiceClip[v] = -1;
+                    active--;
+                }
+            }
+            for (int i = 0; i < BUFFER_FRAMES; i++) {
+                int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sum[i]));
+                out[2 * i] = (byte) s;
+                out[2 * i + 1] = (byte) (s >> 8);
+            }
+            line.write(out, 0, out.length); // blocks only this thread, pacing it to the line
+        }
+    }
+
+    // Starts the clip on a free voice; false if all are busy
+    private boolean start(int clip) {
+        for (int v = 0; v < VOICES; v++) {
+            if (voiceClip[v] < 0) {
+                voiceClip[v] = clip;
+                voicePos[v] = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Consecutive sine notes of ms each, with a short attack and a linear decay per note
+    private static short[] tones(int ms, double volume, double... freqs) {
+        int perNote = (int) (RATE * ms / 1000);
+        int attack = perNote / 10;
+        short[] pcm = new short[perNote * freqs.length];
+        for (int n = 0; n < freqs.length; n++) {
+            double step = 2 * Math.PI * freqs[n] / RATE;
+            for (int i = 0; i < perNote; i++) {
+                double env = i < attack ? (double) i / attack : (double) (perNote - i) / (perNote - attack);
+                pcm[n * perNote + i] = (short) (Math.sin(i * step) * env * volume * Short.MAX_VALUE);
+            }
+        }
+        return pcm;
+    }
+}
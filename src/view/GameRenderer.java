@@ -0,0 +1,330 @@
+package src.view;
+
+import src.model.GameBoard;
+import src.model.Perk;
+import src.model.PieceRotations;
+import src.presentation.GameEvents;
+import src.presentation.GameMetrics;
+import src.presentation.GamePresenter;
+import src.presentation.PreviewQueue;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Draws one game: cached board layer, ghost, active piece, sidebar and pause
+// overlay. Shared by the Swing panel (TetrisGame) and the active-render
+// canvas (TetrisCanvas), which differ only in when and where they draw.
+public class GameRenderer {
+
+    public static final int TILE_SIZE = RenderCache.TILE_SIZE;
+    public static final int BOARD_PX_W = GameBoard.BOARD_WIDTH * TILE_SIZE;
+    public static final int BOARD_PX_H = GameBoard.BOARD_HEIGHT * TILE_SIZE;
+    public static final int SIDEBAR_W = 220;
+
+    // Preview pieces are drawn with small tiles in a grid of PREVIEW_COLS
+    private static final int PREVIEW_TILE = 14;
+    private static final int PREVIEW_COLS = 3;
+
+    // Active perk indicators, in display order
+    private static final Perk[] INDICATORS = { Perk.SLOW_TIME, Perk.DOUBLE_SCORE, Perk.SHIELD, Perk.BOMB, Perk.LUCKY };
+    private static final Color[] INDICATOR_COLORS = { Color.CYAN, Color.MAGENTA, Color.GREEN, Color.RED, Color.YELLOW };
+    private static final String[] INDICATOR_LABELS = {
+            "~ SLOW TIME ~   ",
+            "~ 2x SCORE ~    ",
+            "~ SHIELD ON ~   ",
+            "~ BOMB READY ~ ",
+            "~ LUCKY ON ~    "
+    };
+
+    private final GameBoard model;
+    private final GamePresenter presenter;
+    private final String playerName;
+
+    // The board background, grid and fallen blocks are cached in boardLayer
+    // and only re-rendered when the board changes.
+    private BufferedImage boardLayer;
+    private int layerVersion = -1;
+
+    // Sidebar labels are rebuilt only when their value changes
+    private int labelScore = -1, labelLevel = -1, labelLives = -1;
+    private String scoreLabel, levelLabel, livesLabel;
+
+    // Debug overlay (F3): metrics text, rebuilt at most every OVERLAY_MS
+    private static final long OVERLAY_MS = 500;
+    private GameMetrics overlay;
+    private final String[] overlayLines = new String[3];
+    private long overlayBuilt;
+
+    // Line-clear flash: the rows of the last LINES_CLEARED event, as numbered
+    // before the board compacted, lit for FLASH_NS of real time
+    private static final long FLASH_NS = 150_000_000L;
+    private static final Color FLASH = new Color(255, 255, 255, 140);
+    private int flashRows;
+    private long flashEnd;
+
+    public GameRenderer(GameBoard model, GamePresenter presenter, String playerName) {
+        this.model = model;
+        this.presenter = presenter;
+        this.playerName = playerName;
+        presenter.getEvents().subscribe(this::onEvents);
+    }
+
+    // Bounds covering the active piece and its ghost, in pixels
+    public Rectangle pieceArea() {
+        if (presenter.getPieceCount() == 0)
+            return new Rectangle();
+        int type = presenter.getCurrentPieceType();
+        int rotation = presenter.getCurrentRotation();
+        int x = presenter.getCurX() * TILE_SIZE;
+        int top = Math.min(presenter.getCurY(), presenter.getGhostY()) * TILE_SIZE;
+        int bottom = (Math.max(presenter.getCurY(), presenter.getGhostY()) + PieceRotations.height(type, rotation))
+                * TILE_SIZE;
+        return new Rectangle(x, top, PieceRotations.width(type, rotation) * TILE_SIZE, bottom - top);
+    }
+
+    // Shows the metrics in the sidebar, or hides them with null
+    public void setOverlay(GameMetrics metrics) {
+        overlay = metrics;
+        overlayBuilt = 0;
+    }
+
+    public boolean hasOverlay() {
+        return overlay != null;
+    }
+
+    private void buildOverlay() {
+        long now = System.nanoTime() / 1_000_000L;
+        if (now - overlayBuilt < OVERLAY_MS)
+            return;
+        overlayBuilt = now;
+        overlayLines[0] = String.format("tick  %d/%d/%dus", overlay.getTickP50Micros(), overlay.getTickP99Micros(),
+                overlay.getTickMaxMicros());
+        overlayLines[1] = String.format("paint %d/%d/%dus", overlay.getPaintP50Micros(),
+                overlay.getPaintP99Micros(), overlay.getPaintMaxMicros());
+        overlayLines[2] = String.format("input %dms  %dKB/f", overlay.getInputToRenderP99Micros() / 1000,
+                overlay.getAllocatedBytesPerFrameP50() / 1024);
+    }
+
+    // Cheap fingerprint of everything the sidebar shows
+    public int sidebarState() {
+        int h = model.score;
+        h = h * 31 + model.level;
+        h = h * 31 + model.lives;
+        h = h * 31 + model.cooldownSecondsLeft();
+        for (int i = 0; i < model.perkCount; i++)
+            h = h * 31 + model.perkSlots[i].ordinal();
+        for (Perk perk : INDICATORS)
+            h = h * 31 + (model.isActive(perk) ? model.secondsLeft(perk) : -1);
+        PreviewQueue preview = presenter.getPreview();
+        for (int i = 0; i < preview.depth(); i++)
+            h = h * 31 + preview.peek(i);
+        if (overlay != null) {
+            buildOverlay();
+            for (String line : overlayLines)
+                h = h * 31 + line.hashCode();
+        }
+        return h;
+    }
+
+    // Background, grid and fallen blocks, re-rendered only when the board changes
+    private BufferedImage boardLayer() {
+        if (boardLayer == null)
+            boardLayer = new BufferedImage(BOARD_PX_W, BOARD_PX_H, BufferedImage.TYPE_INT_RGB);
+        int version = model.board.getVersion();
+        if (version == layerVersion)
+            return boardLayer;
+        layerVersion = version;
+
+        Graphics2D g2 = boardLayer.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // --- DRAW BOARD BOUNDARY ---
+        g2.setColor(RenderCache.BOARD_BG);
+        g2.fillRect(0, 0, BOARD_PX_W, BOARD_PX_H);
+
+        // Draw Grid
+        g2.setColor(RenderCache.GRID);
+        for (int x = 0; x <= BOARD_PX_W; x += TILE_SIZE)
+            g2.drawLine(x, 0, x, BOARD_PX_H);
+        for (int y = 0; y <= BOARD_PX_H; y += TILE_SIZE)
+            g2.drawLine(0, y, BOARD_PX_W, y);
+
+        // Draw Fallen Blocks
+        for (int i = 0; i < GameBoard.BOARD_HEIGHT; i++) {
+            for (int j = 0; j < GameBoard.BOARD_WIDTH; j++) {
+                if (model.board.isOccupied(j, i)) {
+                    g2.drawImage(RenderCache.tile(model.board.get(j, i) - 1), j * TILE_SIZE, i * TILE_SIZE, null);
+                }
+            }
+        }
+        g2.dispose();
+        return boardLayer;
+    }
+
+    private void onEvents(GameEvents batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.type(i) == GameEvents.LINES_CLEARED) {
+                flashRows = batch.a(i);
+                flashEnd = System.nanoTime() + FLASH_NS;
+            }
+        }
+    }
+
+    // Rows still flashing from the last clear, bit y = row y; 0 once it is over
+    public int flashRows() {
+        if (flashRows != 0 && System.nanoTime() - flashEnd >= 0)
+            flashRows = 0;
+        return flashRows;
+    }
+
+    // Board, ghost and (unless paused) the active piece. fall is how far,
+    // in tiles, the piece has moved toward its next row since the last tick;
+    // the passive panel always passes 0.
+    public void paintBoard(Graphics2D g2, boolean paused, float fall) {
+        // drawImage honours the clip, so only the damaged part is copied
+        g2.drawImage(boardLayer(), 0, 0, null);
+        int flash = flashRows();
+        if (flash != 0) {
+            g2.setColor(FLASH);
+            for (; flash != 0; flash &= flash - 1)
+                g2.fillRect(0, Integer.numberOfTrailingZeros(flash) * TILE_SIZE, BOARD_PX_W, TILE_SIZE);
+        }
+
+        int type = presenter.getCurrentPieceType();
+        int rotation = presenter.getCurrentRotation();
+        int curX = presenter.getCurX();
+        int curY = presenter.getCurY();
+
+        // GHOST PIECE ---
+        int ghostY = presenter.getGhostY();
+        drawPiece(g2, type, rotation, curX * TILE_SIZE, ghostY * TILE_SIZE, RenderCache.ghostTile());
+
+        // Drawing the Active Piece
+        if (!paused) {
+            int py = curY * TILE_SIZE;
+            if (curY < ghostY)
+                py += Math.round(fall * TILE_SIZE);
+            drawPiece(g2, type, rotation, curX * TILE_SIZE, py, RenderCache.tile(type));
+        }
+    }
+
+    public void paintPaused(Graphics2D g2, int width, int height) {
+        g2.setColor(RenderCache.PAUSE_SHADE);
+        g2.fillRect(0, 0, width, height);
+        g2.setColor(Color.WHITE);
+        g2.setFont(RenderCache.PAUSED);
+        g2.drawString("PAUSED", BOARD_PX_W / 2 - 80, BOARD_PX_H / 2);
+    }
+
+    public void paintSidebar(Graphics2D g2) {
+        // SIDEBAR
+        int sx = BOARD_PX_W + 20;
+        g2.setColor(RenderCache.SIDEBAR_BG);
+        g2.fillRoundRect(sx - 10, 20, 190, 150, 15, 15);
+
+        g2.setColor(Color.WHITE);
+        g2.setFont(RenderCache.LABEL);
+        g2.drawString("PLAYER", sx, 50);
+        g2.setFont(RenderCache.NAME);
+        g2.setColor(Color.CYAN);
+        g2.drawString(playerName, sx, 75);
+
+        g2.setColor(Color.WHITE);
+        g2.setFont(RenderCache.LABEL);
+        if (model.score != labelScore) {
+            labelScore = model.score;
+            scoreLabel = "SCORE: " + model.score;
+        }
+        if (model.level != labelLevel) {
+            labelLevel = model.level;
+            levelLabel = "LEVEL: " + model.level;
+        }
+        if (model.lives != labelLives) {
+            labelLives = model.lives;
+            livesLabel = "LIVES: " + "❤".repeat(Math.max(0, model.lives));
+        }
+        g2.drawString(scoreLabel, sx, 110);
+        g2.drawString(levelLabel, sx, 130);
+
+        g2.setColor(Color.ORANGE);
+        g2.drawString(livesLabel, sx, 155);
+
+        // --- PERKS DISPLAY ---
+        g2.setColor(Color.GREEN);
+        g2.setFont(RenderCache.PERK_TITLE);
+        g2.drawString("PERKS:", sx, 185);
+
+        if (model.isCoolingDown()) {
+            g2.setColor(Color.RED);
+            g2.setFont(RenderCache.COOLDOWN);
+            g2.drawString("COOLDOWN: " + model.cooldownSecondsLeft() + "s", sx, 200);
+            g2.setFont(RenderCache.MONO);
+            for (int i = 0; i < model.perkCount; i++) {
+                g2.setColor(Color.DARK_GRAY); // grayed out during cooldown
+                g2.drawString((i + 1) + " : " + model.perkSlots[i].displayName, sx, 218 + i * 20);
+            }
+        } else {
+            g2.setFont(RenderCache.MONO);
+            for (int i = 0; i < model.perkCount; i++) {
+                g2.setColor(Color.YELLOW);
+                g2.drawString((i + 1) + " : " + model.perkSlots[i].displayName, sx, 205 + i * 20);
+            }
+            if (model.perkCount == 0) {
+                g2.setColor(Color.DARK_GRAY);
+                g2.drawString("none", sx, 205);
+            }
+        }
+
+        // Active perk indicators with countdown
+        int indY = 275;
+        for (int i = 0; i < INDICATORS.length; i++) {
+            Perk perk = INDICATORS[i];
+            if (model.isActive(perk)) {
+                g2.setColor(INDICATOR_COLORS[i]);
+                g2.drawString(INDICATOR_LABELS[i] + model.secondsLeft(perk) + "s", sx, indY);
+                indY += 18;
+            }
+        }
+
+        // Upcoming pieces
+        PreviewQueue preview = presenter.getPreview();
+        g2.setColor(Color.WHITE);
+        g2.setFont(RenderCache.PERK_TITLE);
+        g2.drawString("NEXT:", sx, 390);
+        for (int i = 0; i < preview.depth(); i++) {
+            int type = preview.peek(i);
+            if (type < 0)
+                break;
+            int px = sx + (i % PREVIEW_COLS) * 5 * PREVIEW_TILE;
+            int py = 402 + (i / PREVIEW_COLS) * 3 * PREVIEW_TILE;
+            for (int n = 0, cells = PieceRotations.cells(type, 0); n < cells; n++)
+                g2.drawImage(RenderCache.tile(type), px + PieceRotations.cellX(type, 0, n) * PREVIEW_TILE,
+                        py + PieceRotations.cellY(type, 0, n) * PREVIEW_TILE, PREVIEW_TILE, PREVIEW_TILE, null);
+        }
+
+        if (overlay != null) {
+            buildOverlay();
+            g2.setColor(Color.LIGHT_GRAY);
+            g2.setFont(RenderCache.MONO_SMALL);
+            g2.drawString("p50/p99/max:", sx, 490);
+            for (int i = 0; i < overlayLines.length; i++)
+                g2.drawString(overlayLines[i], sx, 503 + i * 12);
+        }
+
+        // Controls
+        g2.setColor(Color.GRAY);
+        g2.setFont(RenderCache.MONO_SMALL);
+        g2.drawString("CONTROLS:", sx, 555);
+        g2.drawString("Arrows : Move/Rotate", sx, 570);
+        g2.drawString("Space  : Hard drop", sx, 585);
+        g2.drawString("1/2/3  : Use Perk", sx, 600);
+        g2.drawString("P      : Pause", sx, 615);
+        g2.drawString("F3     : Debug stats", sx, 630);
+    }
+
+    private void drawPiece(Graphics2D g, int type, int rotation, int px, int py, Image tile) {
+        for (int n = 0, cells = PieceRotations.cells(type, rotation); n < cells; n++)
+            g.drawImage(tile, px + PieceRotations.cellX(type, rotation, n) * TILE_SIZE,
+                    py + PieceRotations.cellY(type, rotation, n) * TILE_SIZE, null);
+    }
+}
@@ -0,0 +1,87 @@
+package src.view;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+// Fonts, colors, strokes and pre-rendered tile sprites shared by every frame.
+// A block on screen is a single image blit instead of a round-rect fill, a
+// brighter() color and a new stroke.
+public final class RenderCache {
+
+    public static final int TILE_SIZE = 35;
+
+    public static final Color[] PIECE_COLORS = {
+            Color.CYAN, Color.YELLOW, new Color(155, 89, 182), Color.ORANGE,
+            Color.BLUE, Color.GREEN, Color.RED
+    };
+
+    public static final Color PANEL_BG = new Color(15, 15, 20);
+    public static final Color BOARD_BG = new Color(40, 40, 50);
+    public static final Color GRID = new Color(60, 60, 70, 50);
+    public static final Color GHOST = new Color(255, 255, 255, 40);
+    public static final Color SIDEBAR_BG = new Color(30, 30, 40);
+    public static final Color PAUSE_SHADE = new Color(0, 0, 0, 180);
+
+    public static final Font LABEL = new Font("SansSerif", Font.BOLD, 14);
+    public static final Font NAME = new Font("SansSerif", Font.PLAIN, 18);
+    public static final Font PERK_TITLE = new Font("SansSerif", Font.BOLD, 13);
+    public static final Font COOLDOWN = new Font("SansSerif", Font.BOLD, 12);
+    public static final Font MONO = new Font("Monospaced", Font.PLAIN, 12);
+    public static final Font MONO_SMALL = new Font("Monospaced", Font.PLAIN, 11);
+    public static final Font PAUSED = new Font("SansSerif", Font.BOLD, 40);
+
+    public static final BasicStroke BLOCK_EDGE = new BasicStroke(2);
+
+    private static final BufferedImage[] TILES = new BufferedImage[PIECE_COLORS.length];
+    private static final BufferedImage GHOST_TILE;
+
+    static {
+        for (int i = 0; i < PIECE_COLORS.length; i++) {
+            TILES[i] = createTile();
+            Graphics2D g = TILES[i].createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Color color = PIECE_COLORS[i];
+            g.setColor(color);
+            g.fillRoundRect(1, 1, TILE_SIZE - 2, TILE_SIZE - 2, 8, 8);
+            g.setColor(color.brighter());
+            g.setStroke(BLOCK_EDGE);
+            g.drawRoundRect(2, 2, TILE_SIZE - 5, TILE_SIZE - 5, 5, 5);
+            g.dispose();
+        }
+        GHOST_TILE = createTile();
+        Graphics2D g = GHOST_TILE.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(GHOST);
+        g.drawRect(2, 2, TILE_SIZE - 4, TILE_SIZE - 4);
+        g.dispose();
+    }
+
+    private RenderCache() {
+    }
+
+    // Translucent image in the screen's native format where there is a screen
+    private static BufferedImage createTile() {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return gc.createCompatibleImage(TILE_SIZE, TILE_SIZE, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    // Sprite for a piece type (0-based)
+    public static BufferedImage tile(int type) {
+        return TILES[type];
+    }
+
+    public static BufferedImage ghostTile() {
+        return GHOST_TILE;
+    }
+}
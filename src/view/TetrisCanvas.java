@@ -0,0 +1,191 @@
+package src.view;
+
+import src.model.GameBoard;
+import src.presentation.FixedStepClock;
+import src.presentation.GameMetrics;
+import src.presentation.GamePresenter;
+import src.presentation.GameView;
+import src.presentation.InputQueue;
+import src.presentation.ReplayRecorder;
+
+import javax.swing.SwingUtilities;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferStrategy;
+import java.io.File;
+import java.util.Random;
+
+// Active-render alternative to TetrisGame, enabled with -Dtetris.activeRender=true.
+// A dedicated thread advances the game logic in fixed 10 ms steps of a
+// FixedStepClock and draws whole frames through a BufferStrategy at a target
+// frame rate, so gravity speed and paint cost no longer affect each other.
+// The falling piece is drawn between rows according to the clock's tick progress.
+public class TetrisCanvas extends Canvas implements GameView, Runnable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_FPS = 60;
+    private static final int LOGIC_STEP = 10; // ms of game time per logic update
+    private static final long LOGIC_STEP_NS = LOGIC_STEP * 1_000_000L;
+    private static final long MAX_CATCH_UP_NS = 250_000_000L; // frames dropped beyond this are not replayed
+
+    private final TetrisLegacy parent;
+    private final GameBoard model;
+    private final GamePresenter presenter;
+    private final GameRenderer renderer;
+    private final GameMetrics metrics; // null if turned off
+    private final FixedStepClock clock = new FixedStepClock();
+    private final InputQueue input = new InputQueue();
+    private final long frameNanos;
+    private final Random flicker = new Random();
+    private ReplayRecorder recorder; // set when -Dtetris.replayDir is given
+
+    private volatile boolean running = false;
+    private volatile boolean isPaused = false;
+
+    public TetrisCanvas(TetrisLegacy parent, String name) {
+        this(parent, name, Integer.getInteger("tetris.fps", DEFAULT_FPS));
+    }
+
+    public TetrisCanvas(TetrisLegacy parent, String name, int targetFps) {
+        this.parent = parent;
+        this.frameNanos = 1_000_000_000L / targetFps;
+
+        model = new GameBoard();
+        presenter = new GamePresenter(model, name, this, clock);
+        presenter.getEvents().subscribe(AudioEngine.listener());
+        metrics = GameMetrics.getDefault();
+        presenter.setMetrics(metrics);
+        renderer = new GameRenderer(model, presenter, name);
+
+        setPreferredSize(new Dimension(GameRenderer.BOARD_PX_W + GameRenderer.SIDEBAR_W, GameRenderer.BOARD_PX_H));
+        setBackground(RenderCache.PANEL_BG);
+        setFocusable(true);
+        setIgnoreRepaint(true);
+
+        // Key events arrive on the EDT and only go into the input queue; the
+        // render thread applies them at the start of its logic steps.
+        addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                int key = e.getKeyCode();
+                if (key == KeyEvent.VK_P) {
+                    isPaused = !isPaused;
+                    input.reset(TetrisGame.now());
+                    return;
+                }
+                if (key == KeyEvent.VK_F3 && metrics != null) {
+                    synchronized (presenter) {
+                        renderer.setOverlay(renderer.hasOverlay() ? null : metrics);
+                    }
+                    return;
+                }
+                int action = TetrisGame.actionFor(key);
+                if (!isPaused && action >= 0)
+                    input.press(action, TetrisGame.now());
+            }
+
+            public void keyReleased(KeyEvent e) {
+                int action = TetrisGame.actionFor(e.getKeyCode());
+                if (action >= 0)
+                    input.release(action, TetrisGame.now());
+            }
+        });
+    }
+
+    // Call once the canvas is displayable (added to a packed frame)
+    public void startGame() {
+        createBufferStrategy(2);
+        synchronized (presenter) {
+            if (System.getProperty("tetris.replayDir") != null)
+                recorder = presenter.startRecording();
+            presenter.newPiece();
+        }
+        running = true;
+        Thread loop = new Thread(this, "tetris-render");
+        loop.setDaemon(true);
+        loop.start();
+        requestFocusInWindow();
+    }
+
+    @Override
+    public void run() {
+        BufferStrategy strategy = getBufferStrategy();
+        long last = System.nanoTime();
+        long pending = 0;
+        while (running) {
+            long frameStart = System.nanoTime();
+            pending = Math.min(pending + frameStart - last, MAX_CATCH_UP_NS);
+            last = frameStart;
+
+            synchronized (presenter) {
+                while (pending >= LOGIC_STEP_NS && running) {
+                    if (!isPaused) {
+                        // real time this step ends at, the clock input is stamped with
+                        input.drain(presenter, (frameStart - pending + LOGIC_STEP_NS) / 1_000_000L);
+                        clock.advance(presenter, LOGIC_STEP);
+                        presenter.flushEvents();
+                    }
+                    pending -= LOGIC_STEP_NS;
+                }
+                if (running) {
+                    long paintStart = System.nanoTime();
+                    render(strategy);
+                    if (metrics != null) {
+                        metrics.frame(System.nanoTime() - paintStart);
+                        long pressed = input.takeFirstUnshown();
+                        if (pressed >= 0)
+                            metrics.inputRendered(pressed, TetrisGame.now());
+                    }
+                }
+            }
+
+            long sleep = frameNanos - (System.nanoTime() - frameStart);
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+            }
+        }
+    }
+
+    private void render(BufferStrategy strategy) {
+        do {
+            do {
+                Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    g2.setColor(getBackground());
+                    g2.fillRect(0, 0, getWidth(), getHeight());
+                    if (model.isFlickerMode && flicker.nextInt(10) > 8)
+                        continue;
+                    g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    renderer.paintBoard(g2, isPaused, isPaused ? 0f : clock.getTickProgress());
+                    renderer.paintSidebar(g2);
+                    if (isPaused)
+                        renderer.paintPaused(g2, getWidth(), getHeight());
+                } finally {
+                    g2.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    @Override
+    public void onRepaint() {
+    }
+
+    // Runs on the render thread; hand the result back to the EDT
+    @Override
+    public void onGameOver(String name, int score) {
+        running = false;
+        clock.stop();
+        long gameId = model.gameId;
+        if (recorder != null)
+            recorder.save(new File(System.getProperty("tetris.replayDir")));
+        SwingUtilities.invokeLater(() -> parent.gameOver(name, score, gameId));
+    }
+}
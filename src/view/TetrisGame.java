@@ -1,40 +1,89 @@
 package src.view;
 
 import src.model.GameBoard;
+import src.model.GameSnapshot;
+import src.presentation.AutoPlayer;
+import src.presentation.FixedStepClock;
+import src.presentation.GameMetrics;
 import src.presentation.GamePresenter;
 import src.presentation.GameView;
+import src.presentation.InputQueue;
+import src.presentation.ReplayRecorder;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
 import java.util.Random;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Swing view. A 10 ms Swing timer is the logic step: it drains queued input
+// and advances a FixedStepClock by the real time elapsed, which fires gravity
+// ticks at the presenter's delay. Keys only enqueue, so a keystroke never
+// repaints by itself; each step repaints whatever changed once.
 public class TetrisGame extends JPanel implements ActionListener, GameView {
 
-    private final int TILE_SIZE = 35;
+    private final int TILE_SIZE = RenderCache.TILE_SIZE;
+    private static final int LOGIC_STEP = 10; // ms between logic steps
+    private static final int MAX_CATCH_UP = 250; // ms of a stall that is replayed, the rest is dropped
     private Timer timer;
-    private Timer perkTimer; // 1-second real-time perk countdown
+    private final FixedStepClock clock = new FixedStepClock();
+    private final InputQueue input = new InputQueue();
+    private long lastStep;
     private String playerName;
     private TetrisLegacy parent;
     private boolean isPaused = false;
 
     private GameBoard model;
     private GamePresenter presenter;
-
-    private final Color[] PIECE_COLORS = {
-            Color.CYAN, Color.YELLOW, new Color(155, 89, 182), Color.ORANGE,
-            Color.BLUE, Color.GREEN, Color.RED
-    };
+    private GameRenderer renderer;
+    private GameMetrics metrics; // null if turned off
+    private ReplayRecorder recorder; // set when -Dtetris.replayDir is given
+
+    // With -Dtetris.snapshotFile the game is saved on pause and every
+    // AUTOSAVE_MS of game time, and resumed on the next start by the same player.
+    private static final int AUTOSAVE_MS = 10_000;
+    // Snapshots are captured on the EDT and written, in order, on this thread
+    private static final ExecutorService SAVER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "snapshot-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final String snapshotPath = System.getProperty("tetris.snapshotFile");
+    private long lastSave = 0;
+
+    // Damage tracking: between board changes only the piece/ghost footprint
+    // and a changed sidebar are repainted.
+    private final int BOARD_PX_W = GameRenderer.BOARD_PX_W;
+    private final int BOARD_PX_H = GameRenderer.BOARD_PX_H;
+    private int dirtyBoardVersion = -1;
+    private final Rectangle lastPieceArea = new Rectangle();
+    private int lastSidebarState = 0;
+    private boolean flickered = false; // a frame was blanked, the next refresh repaints everything
+    private boolean flashing = false; // cleared rows were lit in the last repaint of the board
+
+    private final Random flicker = new Random();
+
+    // Attract mode: with -Dtetris.demo=true the bot plays, a couple of moves per tick
+    private final AutoPlayer demo = Boolean.getBoolean("tetris.demo") ? new AutoPlayer().setActionsPerStep(2) : null;
+    private long demoTick = -1;
 
     public TetrisGame(TetrisLegacy parent, String name) {
         this.parent = parent;
         this.playerName = name;
 
         model = new GameBoard();
-        presenter = new GamePresenter(model, name, this, delay -> timer.setDelay(delay));
-
-        setPreferredSize(new Dimension(GameBoard.BOARD_WIDTH * TILE_SIZE + 220, GameBoard.BOARD_HEIGHT * TILE_SIZE));
-        setBackground(new Color(15, 15, 20));
+        presenter = new GamePresenter(model, name, this, clock);
+        presenter.getEvents().subscribe(AudioEngine.listener());
+        metrics = GameMetrics.getDefault();
+        presenter.setMetrics(metrics);
+        renderer = new GameRenderer(model, presenter, name);
+
+        setPreferredSize(new Dimension(BOARD_PX_W + GameRenderer.SIDEBAR_W, BOARD_PX_H));
+        setBackground(RenderCache.PANEL_BG);
         setFocusable(true);
 
         addKeyListener(new KeyAdapter() {
@@ -42,45 +91,99 @@ public class TetrisGame extends JPanel implements ActionListener, GameView {
                 int key = e.getKeyCode();
                 if (key == KeyEvent.VK_P) {
                     isPaused = !isPaused;
+                    input.reset(now());
+                    if (isPaused)
+                        saveSnapshot();
                     repaint();
                     return;
                 }
-                if (isPaused)
+                if (key == KeyEvent.VK_F3 && metrics != null) {
+                    renderer.setOverlay(renderer.hasOverlay() ? null : metrics);
+                    refresh();
                     return;
-                if (key == KeyEvent.VK_LEFT)
-                    presenter.moveLeft();
-                if (key == KeyEvent.VK_RIGHT)
-                    presenter.moveRight();
-                if (key == KeyEvent.VK_DOWN)
-                    presenter.moveDown();
-                if (key == KeyEvent.VK_UP)
-                    presenter.rotatePiece();
-
-                if (key == KeyEvent.VK_1)
-                    presenter.usePerk(0);
-                if (key == KeyEvent.VK_2)
-                    presenter.usePerk(1);
-                if (key == KeyEvent.VK_3)
-                    presenter.usePerk(2);
+                }
+                int action = actionFor(key);
+                if (!isPaused && action >= 0)
+                    input.press(action, now());
+            }
 
-                repaint();
+            public void keyReleased(KeyEvent e) {
+                int action = actionFor(e.getKeyCode());
+                if (action >= 0)
+                    input.release(action, now());
             }
         });
-        setPreferredSize(new Dimension(GameBoard.BOARD_WIDTH * TILE_SIZE + 220, GameBoard.BOARD_HEIGHT * TILE_SIZE));
+    }
+
+    // Game controls shared by every view; -1 for keys the game ignores
+    static int actionFor(int key) {
+        switch (key) {
+            case KeyEvent.VK_LEFT:
+                return InputQueue.LEFT;
+            case KeyEvent.VK_RIGHT:
+                return InputQueue.RIGHT;
+            case KeyEvent.VK_DOWN:
+                return InputQueue.DOWN;
+            case KeyEvent.VK_UP:
+                return InputQueue.ROTATE;
+            case KeyEvent.VK_SPACE:
+                return InputQueue.HARD_DROP;
+            case KeyEvent.VK_1:
+                return InputQueue.PERK_1;
+            case KeyEvent.VK_2:
+                return InputQueue.PERK_2;
+            case KeyEvent.VK_3:
+                return InputQueue.PERK_3;
+            default:
+                return -1;
+        }
+    }
 
+    // Input timestamps and logic steps share this clock
+    static long now() {
+        return System.nanoTime() / 1_000_000L;
     }
 
     public void startGame() {
-        timer = new Timer(600, this);
-        perkTimer = new Timer(1000, e -> {
-            if (!isPaused) {
-                presenter.tickSeconds();
-                repaint();
+        timer = new Timer(LOGIC_STEP, this);
+
+        GameSnapshot saved = snapshotPath == null ? null : readSnapshot(new File(snapshotPath));
+        if (saved != null && saved.playerName.equalsIgnoreCase(playerName)) {
+            presenter.restore(saved); // resumed games are not recorded for replay
+        } else {
+            if (System.getProperty("tetris.replayDir") != null)
+                recorder = presenter.startRecording();
+            presenter.newPiece();
+        }
+        lastSave = presenter.getTime();
+        lastStep = now();
+        timer.start();
+    }
+
+    // Read on the writer thread, so a save or delete still queued from the
+    // previous game has happened first
+    private static GameSnapshot readSnapshot(File file) {
+        try {
+            return SAVER.submit(() -> GameSnapshot.read(file)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            System.err.println("Could not read snapshot: " + e);
+            return null;
+        }
+    }
+
+    private void saveSnapshot() {
+        lastSave = presenter.getTime();
+        if (snapshotPath == null)
+            return;
+        GameSnapshot snapshot = presenter.snapshot();
+        File file = new File(snapshotPath);
+        SAVER.execute(() -> {
+            try {
+                snapshot.writeTo(file);
+            } catch (IOException e) {
+                System.err.println("Could not save snapshot: " + e.getMessage());
             }
         });
-        presenter.newPiece();
-        timer.start();
-        perkTimer.start();
     }
 
     @Override
@@ -91,170 +194,91 @@ public class TetrisGame extends JPanel implements ActionListener, GameView {
     @Override
     public void onGameOver(String name, int score) {
         timer.stop();
-        perkTimer.stop();
-        parent.gameOver(name, score);
+        clock.stop();
+        if (snapshotPath != null) {
+            File file = new File(snapshotPath);
+            SAVER.execute(file::delete); // after any save still queued
+        }
+        if (recorder != null)
+            recorder.save(new File(System.getProperty("tetris.replayDir")));
+        parent.gameOver(name, score, model.gameId);
     }
 
     public void actionPerformed(ActionEvent e) {
+        long now = now();
+        int elapsed = (int) Math.min(now - lastStep, MAX_CATCH_UP);
+        lastStep = now;
         if (isPaused)
             return;
-        presenter.tick();
-        repaint();
+        input.drain(presenter, now);
+        if (demo != null && clock.getTicks() != demoTick) {
+            demoTick = clock.getTicks();
+            demo.onStep(presenter, clock.getTime());
+        }
+        clock.advance(presenter, elapsed);
+        presenter.flushEvents();
+        if (timer.isRunning() && presenter.getTime() - lastSave >= AUTOSAVE_MS) // not once the game is over
+            saveSnapshot();
+        refresh();
     }
 
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        if (model.isFlickerMode && new Random().nextInt(10) > 8)
+    // Repaints only what changed since the last call
+    private void refresh() {
+        int boardVersion = model.board.getVersion();
+        Rectangle area = renderer.pieceArea();
+        if (flickered) {
+            flickered = false;
+            dirtyBoardVersion = boardVersion;
+            lastPieceArea.setBounds(area);
+            lastSidebarState = renderer.sidebarState();
+            repaint();
             return;
-
-        // --- DRAW BOARD BOUNDARY ---
-        g2.setColor(new Color(40, 40, 50));
-        g2.fillRect(0, 0, GameBoard.BOARD_WIDTH * TILE_SIZE, GameBoard.BOARD_HEIGHT * TILE_SIZE);
-
-        // Draw Grid
-        g2.setColor(new Color(60, 60, 70, 50));
-        for (int x = 0; x <= GameBoard.BOARD_WIDTH * TILE_SIZE; x += TILE_SIZE)
-            g2.drawLine(x, 0, x, GameBoard.BOARD_HEIGHT * TILE_SIZE);
-        for (int y = 0; y <= GameBoard.BOARD_HEIGHT * TILE_SIZE; y += TILE_SIZE)
-            g2.drawLine(0, y, GameBoard.BOARD_WIDTH * TILE_SIZE, y);
-
-        int[][] currentPiece = presenter.getCurrentPiece();
-        int curX = presenter.getCurX();
-        int curY = presenter.getCurY();
-
-        // GHOST PIECE ---
-        int ghostY = presenter.getGhostY();
-        g2.setColor(new Color(255, 255, 255, 40));
-        drawPiece(g2, currentPiece, curX, ghostY, null);
-
-        // Draw Fallen Blocks
-        for (int i = 0; i < GameBoard.BOARD_HEIGHT; i++) {
-            for (int j = 0; j < GameBoard.BOARD_WIDTH; j++) {
-                if (model.board[i][j] != 0) {
-                    drawBlock(g2, j * TILE_SIZE, i * TILE_SIZE, PIECE_COLORS[model.board[i][j] - 1]);
-                }
-            }
         }
-
-        // Drawing the Active Piece
-        if (!isPaused) {
-            drawPiece(g2, currentPiece, curX, curY, PIECE_COLORS[presenter.getCurrentPieceType()]);
+        boolean flash = renderer.flashRows() != 0;
+        if (boardVersion != dirtyBoardVersion || flash || flashing) { // the flash also needs erasing
+            dirtyBoardVersion = boardVersion;
+            repaint(0, 0, BOARD_PX_W, BOARD_PX_H);
+        } else if (!area.equals(lastPieceArea)) {
+            repaint(lastPieceArea);
+            repaint(area);
         }
+        lastPieceArea.setBounds(area);
+        flashing = flash;
 
-        // SIDEBAR
-        int sx = GameBoard.BOARD_WIDTH * TILE_SIZE + 20;
-        g2.setColor(new Color(30, 30, 40));
-        g2.fillRoundRect(sx - 10, 20, 190, 150, 15, 15);
-
-        g2.setColor(Color.WHITE);
-        g2.setFont(new Font("SansSerif", Font.BOLD, 14));
-        g2.drawString("PLAYER", sx, 50);
-        g2.setFont(new Font("SansSerif", Font.PLAIN, 18));
-        g2.setColor(Color.CYAN);
-        g2.drawString(playerName, sx, 75);
-
-        g2.setColor(Color.WHITE);
-        g2.setFont(new Font("SansSerif", Font.BOLD, 14));
-        g2.drawString("SCORE: " + model.score, sx, 110);
-        g2.drawString("LEVEL: " + model.level, sx, 130);
-
-        g2.setColor(Color.ORANGE);
-        g2.drawString("LIVES: " + "❤".repeat(Math.max(0, model.lives)), sx, 155);
+        int sidebar = renderer.sidebarState();
+        if (sidebar != lastSidebarState) {
+            lastSidebarState = sidebar;
+            repaint(BOARD_PX_W, 0, getWidth() - BOARD_PX_W, getHeight());
+        }
+    }
 
-        // --- PERKS DISPLAY ---
-        g2.setColor(Color.GREEN);
-        g2.setFont(new Font("SansSerif", Font.BOLD, 13));
-        g2.drawString("PERKS:", sx, 185);
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        if (model.perkCooldown > 0) {
-            g2.setColor(Color.RED);
-            g2.setFont(new Font("SansSerif", Font.BOLD, 12));
-            g2.drawString("COOLDOWN: " + model.perkCooldown, sx, 200);
-            g2.setFont(new Font("Monospaced", Font.PLAIN, 12));
-            for (int i = 0; i < model.perks.size(); i++) {
-                g2.setColor(Color.DARK_GRAY); // grayed out during cooldown
-                g2.drawString((i + 1) + " : " + model.perks.get(i), sx, 218 + i * 20);
-            }
-        } else {
-            g2.setFont(new Font("Monospaced", Font.PLAIN, 12));
-            for (int i = 0; i < model.perks.size(); i++) {
-                g2.setColor(Color.YELLOW);
-                g2.drawString((i + 1) + " : " + model.perks.get(i), sx, 205 + i * 20);
-            }
-            if (model.perks.isEmpty()) {
-                g2.setColor(Color.DARK_GRAY);
-                g2.drawString("none", sx, 205);
-            }
+        if (model.isFlickerMode && flicker.nextInt(10) > 8) {
+            // only part of the panel may have been damaged; blanking it would
+            // stick until that part changes again, so bring it all back next step
+            flickered = true;
+            return;
         }
 
-        // Active perk indicators with countdown
-        int indY = 275;
-        if (model.slowTime) {
-            g2.setColor(Color.CYAN);
-            g2.drawString("~ SLOW TIME ~   " + model.slowTimeSeconds + "s", sx, indY);
-            indY += 18;
-        }
-        if (model.doubleScore) {
-            g2.setColor(Color.MAGENTA);
-            g2.drawString("~ 2x SCORE ~    " + model.doubleScoreSeconds + "s", sx, indY);
-            indY += 18;
-        }
-        if (model.shield) {
-            g2.setColor(Color.GREEN);
-            g2.drawString("~ SHIELD ON ~   " + model.shieldSeconds + "s", sx, indY);
-            indY += 18;
-        }
-        if (model.bomb) {
-            g2.setColor(Color.RED);
-            g2.drawString("~ BOMB READY ~ " + model.bombSeconds + "s", sx, indY);
-            indY += 18;
-        }
-        if (model.lucky) {
-            g2.setColor(Color.YELLOW);
-            g2.drawString("~ LUCKY ON ~    " + model.luckySeconds + "s", sx, indY);
-            indY += 18;
-        }
+        Rectangle clip = g2.getClipBounds();
+        renderer.paintBoard(g2, isPaused, 0f);
 
-        // Controls
-        g2.setColor(Color.GRAY);
-        g2.setFont(new Font("Monospaced", Font.PLAIN, 11));
-        g2.drawString("CONTROLS:", sx, 540);
-        g2.drawString("Arrows : Move/Rotate", sx, 555);
-        g2.drawString("1/2/3  : Use Perk", sx, 570);
-        g2.drawString("P      : Pause", sx, 585);
+        if (clip == null || clip.x + clip.width > BOARD_PX_W)
+            renderer.paintSidebar(g2);
 
-        if (isPaused) {
-            g2.setColor(new Color(0, 0, 0, 180));
-            g2.fillRect(0, 0, getWidth(), getHeight());
-            g2.setColor(Color.WHITE);
-            g2.setFont(new Font("SansSerif", Font.BOLD, 40));
-            g2.drawString("PAUSED", (GameBoard.BOARD_WIDTH * TILE_SIZE) / 2 - 80,
-                    (GameBoard.BOARD_HEIGHT * TILE_SIZE) / 2);
-        }
-    }
+        if (isPaused)
+            renderer.paintPaused(g2, getWidth(), getHeight());
 
-    private void drawPiece(Graphics2D g, int[][] piece, int x, int y, Color color) {
-        for (int i = 0; i < piece.length; i++) {
-            for (int j = 0; j < piece[0].length; j++) {
-                if (piece[i][j] != 0) {
-                    if (color == null) {
-                        g.drawRect((x + j) * TILE_SIZE + 2, (y + i) * TILE_SIZE + 2, TILE_SIZE - 4, TILE_SIZE - 4);
-                    } else {
-                        drawBlock(g, (x + j) * TILE_SIZE, (y + i) * TILE_SIZE, color);
-                    }
-                }
-            }
+        if (metrics != null) {
+            metrics.frame(System.nanoTime() - start);
+            long pressed = input.takeFirstUnshown();
+            if (pressed >= 0)
+                metrics.inputRendered(pressed, now());
         }
     }
-
-    private void drawBlock(Graphics2D g, int x, int y, Color color) {
-        g.setColor(color);
-        g.fillRoundRect(x + 1, y + 1, TILE_SIZE - 2, TILE_SIZE - 2, 8, 8);
-        g.setColor(color.brighter());
-        g.setStroke(new BasicStroke(2));
-        g.drawRoundRect(x + 2, y + 2, TILE_SIZE - 5, TILE_SIZE - 5, 5, 5);
-    }
-}
\ No newline at end of file
+}
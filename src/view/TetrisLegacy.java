@@ -1,15 +1,19 @@
 package src.view;
 
-import src.model.GameBoard;
 import src.model.PlayerRecord;
+import src.model.RecordIngestor;
+import src.model.RecordStore;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.util.LinkedList;
+import java.util.List;
 
 public class TetrisLegacy extends JFrame {
 
+    // Records per page of the leaderboard, so a click costs the same however many there are
+    private static final int PAGE_SIZE = 50;
+
     public TetrisLegacy() {
         setResizable(false);
         showMainMenu();
@@ -104,6 +108,15 @@ public class TetrisLegacy extends JFrame {
             name = "Anonymous";
 
         getContentPane().removeAll();
+        if (Boolean.getBoolean("tetris.activeRender")) {
+            TetrisCanvas canvas = new TetrisCanvas(this, name);
+            add(canvas);
+            revalidate();
+            pack();
+            setLocationRelativeTo(null);
+            canvas.startGame();
+            return;
+        }
         TetrisGame gamePanel = new TetrisGame(this, name);
         add(gamePanel);
         revalidate();
@@ -112,11 +125,10 @@ public class TetrisLegacy extends JFrame {
         gamePanel.startGame();
     }
 
-    public void gameOver(String name, int score) {
-        GameBoard.database.add(new PlayerRecord(name, score));
+    public void gameOver(String name, int score, long gameId) {
+        RecordIngestor.getDefault().submit(new PlayerRecord(name, score, gameId));
         int choice = JOptionPane.showConfirmDialog(this, "GAME OVER, " + name + "!\nScore: " + score + "\nTry again?",
                 "Game Over", JOptionPane.YES_NO_OPTION);
-        GameBoard.database.add(new PlayerRecord(name, score));
         if (choice == JOptionPane.YES_OPTION) {
             showStartMenu();
         } else {
@@ -125,6 +137,7 @@ public class TetrisLegacy extends JFrame {
     }
 
     private void showSearchScreen() {
+        RecordIngestor.getDefault().flush();
         getContentPane().removeAll();
         setLayout(new BorderLayout());
 
@@ -150,51 +163,79 @@ public class TetrisLegacy extends JFrame {
         resultArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
         resultArea.setBorder(new EmptyBorder(10, 10, 10, 10));
 
+        JButton prevBtn = createStyledButton("< PREV", Color.DARK_GRAY);
+        JButton nextBtn = createStyledButton("NEXT >", Color.DARK_GRAY);
+        prevBtn.setEnabled(false);
+        nextBtn.setEnabled(false);
+        int[] pageFrom = { 1 }; // first rank on the page shown, 0 while showing a name search
+
+        Runnable showPage = () -> {
+            RecordStore store = RecordStore.getDefault();
+            int size = store.size();
+            int from = pageFrom[0];
+            StringBuilder results = new StringBuilder("--- ALL RECORDS ---\n\n");
+            int rank = from;
+            for (PlayerRecord p : store.page(from, PAGE_SIZE)) {
+                results.append(String.format("Rank %d: %-15s | Score: %d%n", rank++, p.name, p.score));
+            }
+            if (size == 0)
+                results.append("No records yet.");
+            else
+                results.append(String.format("%nRanks %d-%d of %d", from, rank - 1, size));
+            resultArea.setText(results.toString());
+            resultArea.setCaretPosition(0);
+            prevBtn.setEnabled(from > 1);
+            nextBtn.setEnabled(rank <= size);
+        };
+
         searchBtn.addActionListener(e -> {
             String query = searchField.getText().trim();
-            LinkedList<PlayerRecord> sorted = GameBoard.getSortedRecords();
-            StringBuilder results = new StringBuilder("--- SEARCH RESULTS ---\n\n");
             if (query.isEmpty()) {
-                int rank = 1;
-                for (PlayerRecord p : sorted) {
-                    results.append(String.format("Rank %d: %-15s | Score: %d%n", rank++, p.name, p.score));
-                }
-                if (sorted.isEmpty())
-                    results.append("No records yet.");
-            } else {
-                int rank = 1;
-                boolean found = false;
-                for (PlayerRecord p : sorted) {
-                    if (p.name.equalsIgnoreCase(query)) {
-                        results.append(String.format("Rank %d: %-15s | Score: %d%n", rank, p.name, p.score));
-                        found = true;
-                    }
-                    rank++;
-                }
-                if (!found)
-                    results.append("No record found for: ").append(query);
+                pageFrom[0] = 1;
+                showPage.run();
+                return;
+            }
+            RecordStore store = RecordStore.getDefault();
+            List<PlayerRecord> found = store.findByName(query);
+            StringBuilder results = new StringBuilder("--- SEARCH RESULTS ---\n\n");
+            for (PlayerRecord p : found.subList(0, Math.min(found.size(), PAGE_SIZE))) {
+                results.append(String.format("Rank %d: %-15s | Score: %d%n", store.rankOf(p), p.name, p.score));
             }
+            if (found.isEmpty())
+                results.append("No record found for: ").append(query);
+            else if (found.size() > PAGE_SIZE)
+                results.append(String.format("%nBest %d of %d records", PAGE_SIZE, found.size()));
             resultArea.setText(results.toString());
+            resultArea.setCaretPosition(0);
+            pageFrom[0] = 0;
+            prevBtn.setEnabled(false);
+            nextBtn.setEnabled(false);
         });
 
         viewAllBtn.addActionListener(e -> {
-            LinkedList<PlayerRecord> sorted = GameBoard.getSortedRecords();
-            StringBuilder results = new StringBuilder("--- ALL RECORDS ---\n\n");
-            int rank = 1;
-            for (PlayerRecord p : sorted) {
-                results.append(String.format("Rank %d: %-15s | Score: %d%n", rank++, p.name, p.score));
-            }
-            if (sorted.isEmpty())
-                results.append("No records yet.");
-            resultArea.setText(results.toString());
+            pageFrom[0] = 1;
+            showPage.run();
+        });
+        prevBtn.addActionListener(e -> {
+            pageFrom[0] = Math.max(1, pageFrom[0] - PAGE_SIZE);
+            showPage.run();
+        });
+        nextBtn.addActionListener(e -> {
+            pageFrom[0] += PAGE_SIZE;
+            showPage.run();
         });
 
         JButton backBtn = createStyledButton("BACK TO MENU", new Color(100, 100, 100));
         backBtn.addActionListener(e -> showMainMenu());
 
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.add(prevBtn, BorderLayout.WEST);
+        bottomPanel.add(backBtn, BorderLayout.CENTER);
+        bottomPanel.add(nextBtn, BorderLayout.EAST);
+
         add(searchPanel, BorderLayout.NORTH);
         add(new JScrollPane(resultArea), BorderLayout.CENTER);
-        add(backBtn, BorderLayout.SOUTH);
+        add(bottomPanel, BorderLayout.SOUTH);
 
         revalidate();
         repaint();